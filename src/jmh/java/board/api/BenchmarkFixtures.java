@@ -0,0 +1,159 @@
+package board.api;
+
+import board.api.elastic.BoardPageParameters;
+import board.api.model.Board;
+import board.api.util.BoardUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Deterministic inputs for the benchmarks. Boards come from a seeded BoardUtil configured
+ * from board.properties, so every run measures the same data.
+ */
+public final class BenchmarkFixtures {
+
+    public static final long SEED = 42L;
+    public static final int PAGE_SIZE = 9;
+
+    private static final Properties PROPERTIES = loadProperties();
+
+    private BenchmarkFixtures() {
+    }
+
+    public static List<String> getList(String key) {
+        return Arrays.asList(StringUtils.commaDelimitedListToStringArray(PROPERTIES.getProperty(key)));
+    }
+
+    public static BoardUtil getBoardUtil(long seed) {
+        BoardUtil boardUtil = new BoardUtil();
+        ReflectionTestUtils.setField(boardUtil, "sizes", getList("board.size"));
+        ReflectionTestUtils.setField(boardUtil, "ridingLevels", getList("board.riding.level"));
+        ReflectionTestUtils.setField(boardUtil, "bends", getList("board.bend"));
+        ReflectionTestUtils.setField(boardUtil, "shapes", getList("board.shape"));
+        ReflectionTestUtils.setField(boardUtil, "terrains", getList("board.terrain"));
+        ReflectionTestUtils.setField(boardUtil, "stanceMin", getList("board.stance.min"));
+        ReflectionTestUtils.setField(boardUtil, "stanceMax", getList("board.stance.max"));
+        ReflectionTestUtils.setField(boardUtil, "stanceSetBack", getList("board.stance.setBack"));
+        boardUtil.setSeed(seed);
+        return boardUtil;
+    }
+
+    public static List<Board> getBoards(int count) {
+        BoardUtil boardUtil = getBoardUtil(SEED);
+        return Stream.generate(boardUtil::getRandomBoard)
+                .limit(count)
+                .collect(Collectors.toList());
+    }
+
+    public static BoardPageParameters getPageParameters() {
+        BoardPageParameters pageParameters = new BoardPageParameters();
+        pageParameters.setPage(3);
+        pageParameters.setPageSize(PAGE_SIZE);
+        pageParameters.setSortBy("year");
+        pageParameters.setSortOrder("desc");
+        return pageParameters;
+    }
+
+    /**
+     * Search response with one page of boards as hits and the filter aggregations
+     * counted over all the given boards
+     *
+     * @param boards - boards of the catalogue
+     * @param filterNames - aggregated filters
+     * @return search response
+     */
+    public static SearchResponse getSearchResponse(List<Board> boards, List<String> filterNames) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        SearchHit[] hits = boards.stream()
+                .limit(PAGE_SIZE)
+                .map(board -> {
+                    SearchHit hit = new SearchHit(0, board.getId(), new Text("_doc"), Collections.emptyMap());
+                    try {
+                        hit.sourceRef(new BytesArray(objectMapper.writeValueAsBytes(board)));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return hit;
+                })
+                .toArray(SearchHit[]::new);
+        InternalSearchResponse sections = new InternalSearchResponse(
+                new SearchHits(hits, boards.size(), 1.0f),
+                getAggregations(boards, filterNames),
+                null, null, false, null, 1);
+        return new SearchResponse(sections, null, 1, 1, 0, 1,
+                ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY);
+    }
+
+    public static InternalAggregations getAggregations(List<Board> boards, List<String> filterNames) {
+        List<InternalAggregation> aggregations = new ArrayList<>();
+        for (String filterName : filterNames) {
+            Function<Board, Object> field = getField(filterName);
+            Map<String, Long> counts = boards.stream()
+                    .collect(Collectors.groupingBy(board -> String.valueOf(field.apply(board)),
+                            TreeMap::new, Collectors.counting()));
+            List<StringTerms.Bucket> buckets = counts.entrySet().stream()
+                    .map(entry -> new StringTerms.Bucket(new BytesRef(entry.getKey()), entry.getValue(),
+                            InternalAggregations.EMPTY, false, 0, DocValueFormat.RAW))
+                    .collect(Collectors.toList());
+            aggregations.add(new StringTerms(filterName, BucketOrder.count(false), 100, 1,
+                    Collections.emptyList(), null, DocValueFormat.RAW, 100, false, 0, buckets, 0));
+        }
+        return new InternalAggregations(aggregations);
+    }
+
+    private static Function<Board, Object> getField(String filterName) {
+        switch (filterName) {
+            case "terrain":
+                return Board::getTerrain;
+            case "size":
+                return Board::getSize;
+            case "year":
+                return Board::getYear;
+            case "ridingLevel":
+                return Board::getRidingLevel;
+            case "bend":
+                return Board::getBend;
+            case "shape":
+                return Board::getShape;
+            default:
+                throw new IllegalArgumentException("Unknown filter " + filterName);
+        }
+    }
+
+    private static Properties loadProperties() {
+        try {
+            return PropertiesLoaderUtils.loadProperties(new ClassPathResource("board.properties"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package board.api.controller;
+
+import board.api.BenchmarkFixtures;
+import board.api.dao.BoardResponseMapper;
+import board.api.elastic.BoardResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization of a full board page in each negotiable format. Next to the time per page the
+ * bytes on the wire are reported as the secondary results bytes and gzippedBytes.
+ */
+@State(Scope.Benchmark)
+public class BoardResponseSerializationBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private ResultResponse<BoardResponse> page;
+    private long gzippedBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper(getFactory(format));
+        BoardResponse response = new BoardResponseMapper(new ObjectMapper()).creatBoardResponse(
+                BenchmarkFixtures.getSearchResponse(
+                        BenchmarkFixtures.getBoards(2000), BenchmarkFixtures.getList("board.search.filters")),
+                BenchmarkFixtures.getPageParameters(),
+                Collections.singletonMap("terrain", "Powder"));
+        page = new ResultResponse<>(response);
+        gzippedBytes = gzip(objectMapper.writeValueAsBytes(page)).length;
+    }
+
+    @Benchmark
+    public byte[] serialize(PageSize size) throws JsonProcessingException {
+        byte[] bytes = objectMapper.writeValueAsBytes(page);
+        size.bytes = bytes.length;
+        size.gzippedBytes = gzippedBytes;
+        return bytes;
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private static JsonFactory getFactory(String format) {
+        switch (format) {
+            case "smile":
+                return new SmileFactory();
+            case "cbor":
+                return new CBORFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+
+    /**
+     * Encoded and gzipped size of the serialized page
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PageSize {
+        public long bytes;
+        public long gzippedBytes;
+    }
+}
@@ -0,0 +1,65 @@
+package board.api.dao;
+
+import board.api.BenchmarkFixtures;
+import board.api.elastic.BoardPageParameters;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
+import org.springframework.data.elasticsearch.core.query.SearchQuery;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Building the queries and filter aggregations of GET /boards and GET /boards/search,
+ * including rendering the search source into the request body.
+ */
+@State(Scope.Benchmark)
+public class BoardQueriesBenchmark {
+
+    private BoardQueries boardQueries;
+    private BoardPageParameters pageParameters;
+    private Map<String, String> searchFilters;
+
+    @Setup
+    public void setUp() {
+        boardQueries = new BoardQueries(null);
+        ReflectionTestUtils.setField(boardQueries, "filterNames", BenchmarkFixtures.getList("board.search.filters"));
+        ReflectionTestUtils.setField(boardQueries, "searchFields", BenchmarkFixtures.getList("board.search.fields"));
+        ReflectionTestUtils.setField(boardQueries, "tiebreakerField", "id");
+        pageParameters = BenchmarkFixtures.getPageParameters();
+        searchFilters = new HashMap<>();
+        searchFilters.put("terrain", "Powder,Freeride");
+        searchFilters.put("ridingLevel", "Expert");
+        searchFilters.put("spec.flex.min", "6");
+    }
+
+    @Benchmark
+    public SearchQuery findBoardsQuery() {
+        NativeSearchQueryBuilder nativeSearchQueryBuilder = new NativeSearchQueryBuilder()
+                .withQuery(boardQueries.getQueryForRanges(searchFilters))
+                .withFilter(boardQueries.getPostFilter(searchFilters))
+                .withPageable(boardQueries.getPageable(pageParameters))
+                .withSort(boardQueries.getSort(pageParameters))
+                .withSourceFilter(boardQueries.getSourceFilter(pageParameters));
+        boardQueries.addFilterAggregations(nativeSearchQueryBuilder, searchFilters);
+        return nativeSearchQueryBuilder.build();
+    }
+
+    @Benchmark
+    public String findBoardsSource() {
+        return Strings.toString(boardQueries.getSearchSource(pageParameters, searchFilters, true));
+    }
+
+    @Benchmark
+    public String searchBoardsSource() {
+        SearchSourceBuilder source = boardQueries.getSearchSource(
+                boardQueries.getQueryForSearchKey("powder expert"), pageParameters);
+        return Strings.toString(source);
+    }
+}
@@ -0,0 +1,55 @@
+package board.api.dao;
+
+import board.api.BenchmarkFixtures;
+import board.api.elastic.BoardFilter;
+import board.api.elastic.BoardPageParameters;
+import board.api.elastic.BoardResponse;
+import board.api.model.Board;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mapping a search response into a board page: hit sources into boards and the terms
+ * aggregations into filters.
+ */
+@State(Scope.Benchmark)
+public class BoardResponseMapperBenchmark {
+
+    private static final int CATALOGUE_SIZE = 2000;
+
+    private BoardResponseMapper responseMapper;
+    private BoardPageParameters pageParameters;
+    private Map<String, String> searchFilters;
+    private SearchResponse searchResponse;
+    private Aggregations aggregations;
+
+    @Setup
+    public void setUp() {
+        responseMapper = new BoardResponseMapper(new ObjectMapper());
+        pageParameters = BenchmarkFixtures.getPageParameters();
+        searchFilters = Collections.singletonMap("terrain", "Powder");
+        List<Board> boards = BenchmarkFixtures.getBoards(CATALOGUE_SIZE);
+        searchResponse = BenchmarkFixtures.getSearchResponse(
+                boards, BenchmarkFixtures.getList("board.search.filters"));
+        aggregations = searchResponse.getAggregations();
+    }
+
+    @Benchmark
+    public List<BoardFilter> getFilters() {
+        return responseMapper.getFilters(aggregations, searchFilters);
+    }
+
+    @Benchmark
+    public BoardResponse creatBoardResponse() {
+        return responseMapper.creatBoardResponse(searchResponse, pageParameters, searchFilters);
+    }
+}
@@ -0,0 +1,75 @@
+package board.api.dao;
+
+import board.api.BenchmarkFixtures;
+import board.api.elastic.BoardFit;
+import board.api.util.BoardGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Top-10 fit search of GET /boards/fit over generated boards, the KD-tree against a scan of
+ * every board.
+ */
+@State(Scope.Benchmark)
+public class FitTreeBenchmark {
+
+    private static final double[] SCALES = {5, 1, 0.5, 0.5};
+
+    @Param({"10000", "100000"})
+    private int boards;
+
+    private FitTree tree;
+    private Map<String, double[]> points;
+    private double[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        BoardGenerator generator = BenchmarkFixtures.getBoardUtil(BenchmarkFixtures.SEED).getGenerator(BenchmarkFixtures.SEED);
+        ObjectMapper objectMapper = new ObjectMapper();
+        TypeReference<Map<String, Object>> sourceType = new TypeReference<Map<String, Object>>() {
+        };
+        points = new HashMap<>();
+        generator.getBoards(0, boards).sequential().forEach(board -> {
+            double[] fields = FitTree.getFields(objectMapper.convertValue(board, sourceType), FitTree.newFields());
+            points.put(board.getId(), FitTree.toPoint(fields, SCALES));
+        });
+        tree = new FitTree(points);
+        Random random = new Random(1);
+        queries = new double[1024][];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = FitTree.toQuery(new double[]{60 + random.nextInt(40), 1 + random.nextInt(10),
+                    17 + random.nextInt(8), 19 + random.nextInt(6)}, SCALES);
+        }
+    }
+
+    @Benchmark
+    public List<BoardFit> tree() {
+        FitTree.Neighbours neighbours = new FitTree.Neighbours(10);
+        tree.nearest(nextQuery(), Collections.emptySet(), neighbours);
+        return neighbours.toFits();
+    }
+
+    @Benchmark
+    public List<BoardFit> scan() {
+        double[] query = nextQuery();
+        FitTree.Neighbours neighbours = new FitTree.Neighbours(10);
+        points.forEach((id, point) -> neighbours.offer(id, FitTree.distance(query, point, 0)));
+        return neighbours.toFits();
+    }
+
+    private double[] nextQuery() {
+        return queries[next++ & (queries.length - 1)];
+    }
+}
@@ -0,0 +1,65 @@
+package board.api.service;
+
+import board.api.BenchmarkFixtures;
+import board.api.cache.BoardCache;
+import board.api.cache.FilterCache;
+import board.api.cache.RequestCoalescer;
+import board.api.dao.InMemoryBoardDao;
+import board.api.elastic.BoardPageParameters;
+import board.api.elastic.BoardResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The service layer over the in-memory storage, without an Elasticsearch node
+ */
+@State(Scope.Benchmark)
+public class BoardServiceBenchmark {
+
+    @Param({"2000", "50000"})
+    private int boards;
+
+    private BoardService boardService;
+    private BoardPageParameters pageParameters;
+    private Map<String, String> searchFilters;
+
+    @Setup
+    public void setUp() {
+        InMemoryBoardDao boardDao = new InMemoryBoardDao(
+                BenchmarkFixtures.getBoardUtil(BenchmarkFixtures.SEED), new ObjectMapper());
+        ReflectionTestUtils.setField(boardDao, "filterNames", BenchmarkFixtures.getList("board.search.filters"));
+        ReflectionTestUtils.setField(boardDao, "searchFields", BenchmarkFixtures.getList("board.search.fields"));
+        boardDao.addRandomBoards(boards);
+        FilterCache filterCache = new FilterCache(boardDao);
+        ReflectionTestUtils.setField(filterCache, "refreshAfterMs", 30000L);
+        ReflectionTestUtils.setField(filterCache, "maxStalenessMs", 300000L);
+        BoardCache boardCache = new BoardCache();
+        ReflectionTestUtils.setField(boardCache, "maxEntries", 10000);
+        ReflectionTestUtils.setField(boardCache, "maxWeightMb", 64L);
+        ReflectionTestUtils.setField(boardCache, "ttlMs", 60000L);
+        ReflectionTestUtils.setField(boardCache, "negativeTtlMs", 5000L);
+        RequestCoalescer requestCoalescer = new RequestCoalescer();
+        ReflectionTestUtils.setField(requestCoalescer, "enabled", true);
+        boardService = new BoardService(boardDao, filterCache, boardCache, requestCoalescer);
+        pageParameters = BenchmarkFixtures.getPageParameters();
+        searchFilters = Collections.singletonMap("terrain", "Powder");
+    }
+
+    @Benchmark
+    public BoardResponse getBoardsByFilters() {
+        return boardService.getBoardsByFilters(pageParameters, searchFilters);
+    }
+
+    @Benchmark
+    public BoardResponse searchBoards() {
+        return boardService.searchBoars(pageParameters, "powder");
+    }
+}
@@ -0,0 +1,36 @@
+package board.api.util;
+
+import board.api.BenchmarkFixtures;
+import board.api.model.Board;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of one generated board, the unit of work of /boards/addRandom, and of one board of the
+ * seeded fixture generator
+ */
+@State(Scope.Thread)
+public class BoardUtilBenchmark {
+
+    private BoardUtil boardUtil;
+    private BoardGenerator generator;
+    private long n;
+
+    @Setup
+    public void setUp() {
+        boardUtil = BenchmarkFixtures.getBoardUtil(BenchmarkFixtures.SEED);
+        generator = boardUtil.getGenerator(BenchmarkFixtures.SEED);
+    }
+
+    @Benchmark
+    public Board getRandomBoard() {
+        return boardUtil.getRandomBoard();
+    }
+
+    @Benchmark
+    public Board getGeneratedBoard() {
+        return generator.getBoard(n++);
+    }
+}
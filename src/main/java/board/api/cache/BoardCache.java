@@ -0,0 +1,147 @@
+package board.api.cache;
+
+import board.api.model.Board;
+import board.api.model.Feature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Read-through LRU cache of boards by id. The cache is bounded by entry count and by the
+ * estimated size of the cached boards, entries expire after a TTL and ids that were not
+ * found are remembered for a shorter TTL. Loads run outside the lock; a load that overlapped
+ * an eviction or a clear is returned but not cached, so it cannot restore a stale board.
+ */
+@Component
+@PropertySource("classpath:board.properties")
+public class BoardCache {
+
+    private static final long MB = 1024 * 1024;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicLong generation = new AtomicLong();
+    private long weight;
+    @Value("${board.cache.boards.max.entries}")
+    private int maxEntries;
+    @Value("${board.cache.boards.max.weight.mb}")
+    private long maxWeightMb;
+    @Value("${board.cache.boards.ttl.ms}")
+    private long ttlMs;
+    @Value("${board.cache.boards.negative.ttl.ms}")
+    private long negativeTtlMs;
+
+    /**
+     * Get board from cache or load it
+     *
+     * @param id - board id
+     * @param loader - loads the board, returns null if the board does not exist
+     * @return board or null if the board does not exist
+     */
+    public Board get(String id, Function<String, Board> loader) {
+        Entry entry = getEntry(id);
+        if (entry != null) {
+            hits.increment();
+            return entry.board;
+        }
+        misses.increment();
+        long loadGeneration = generation.get();
+        Board board = loader.apply(id);
+        put(id, board, loadGeneration);
+        return board;
+    }
+
+    public synchronized void evict(String id) {
+        generation.incrementAndGet();
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            weight -= entry.weight;
+        }
+    }
+
+    public synchronized void clear() {
+        generation.incrementAndGet();
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized BoardCacheStats getStats() {
+        BoardCacheStats stats = new BoardCacheStats();
+        stats.setHits(hits.sum());
+        stats.setMisses(misses.sum());
+        stats.setEvictions(evictions.sum());
+        stats.setSize(entries.size());
+        stats.setWeightBytes(weight);
+        return stats;
+    }
+
+    private synchronized Entry getEntry(String id) {
+        Entry entry = entries.get(id);
+        if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(id);
+            weight -= entry.weight;
+            return null;
+        }
+        return entry;
+    }
+
+    private synchronized void put(String id, Board board, long loadGeneration) {
+        if (generation.get() != loadGeneration) {
+            return;
+        }
+        long ttl = board == null ? negativeTtlMs : ttlMs;
+        Entry entry = new Entry(board, weigh(id, board), System.currentTimeMillis() + ttl);
+        Entry previous = entries.put(id, entry);
+        if (previous != null) {
+            weight -= previous.weight;
+        }
+        weight += entry.weight;
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (eldest.hasNext() && (entries.size() > maxEntries || weight > maxWeightMb * MB)) {
+            weight -= eldest.next().weight;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static long weigh(String id, Board board) {
+        long weight = 64 + length(id);
+        if (board == null) {
+            return weight;
+        }
+        weight += 256 + length(board.getName()) + length(board.getCode()) + length(board.getSize())
+                + length(board.getTerrain()) + length(board.getRidingLevel()) + length(board.getBend())
+                + length(board.getShape()) + length(board.getDetails());
+        if (board.getFeatures() != null) {
+            for (Feature feature : board.getFeatures()) {
+                weight += 64 + length(feature.getType()) + length(feature.getName()) + length(feature.getDescription());
+            }
+        }
+        return weight;
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : 40 + 2L * value.length();
+    }
+
+    private static class Entry {
+        private final Board board;
+        private final long weight;
+        private final long expiresAt;
+
+        private Entry(Board board, long weight, long expiresAt) {
+            this.board = board;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package board.api.cache;
+
+import lombok.Data;
+
+@Data
+public class BoardCacheStats {
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long size;
+    private long weightBytes;
+}
@@ -0,0 +1,114 @@
+package board.api.cache;
+
+import board.api.dao.BoardDao;
+import board.api.elastic.BoardFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the filter catalogue in memory. Entries older than the refresh interval are served
+ * while a background reload runs, entries older than the staleness bound are reloaded in
+ * the caller thread and any board write drops the entry.
+ */
+@Component
+@PropertySource("classpath:board.properties")
+public class FilterCache {
+
+    private final BoardDao boardDao;
+    private final AtomicReference<Entry> entry = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "filter-cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    @Value("${board.cache.filters.refresh.after.ms}")
+    private long refreshAfterMs;
+    @Value("${board.cache.filters.max.staleness.ms}")
+    private long maxStalenessMs;
+
+    public FilterCache(BoardDao boardDao) {
+        this.boardDao = boardDao;
+    }
+
+    public List<BoardFilter> getFilters() {
+        Entry current = entry.get();
+        if (current == null || current.generation != generation.get()) {
+            return load().filters;
+        }
+        long age = System.currentTimeMillis() - current.loadedAt;
+        if (age >= maxStalenessMs) {
+            return load().filters;
+        }
+        if (age >= refreshAfterMs) {
+            refreshAsync();
+        }
+        return current.filters;
+    }
+
+    /**
+     * Drop cached filters, the next call reads them from the index
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        entry.set(null);
+    }
+
+    private synchronized Entry load() {
+        Entry current = entry.get();
+        if (current != null
+                && current.generation == generation.get()
+                && System.currentTimeMillis() - current.loadedAt < refreshAfterMs) {
+            return current;
+        }
+        return reload();
+    }
+
+    private Entry reload() {
+        long loadGeneration = generation.get();
+        Entry loaded = new Entry(boardDao.findFilters(), loadGeneration, System.currentTimeMillis());
+        if (generation.get() == loadGeneration) {
+            entry.set(loaded);
+        }
+        return loaded;
+    }
+
+    private void refreshAsync() {
+        if (refreshing.compareAndSet(false, true)) {
+            refreshExecutor.execute(() -> {
+                try {
+                    reload();
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private static class Entry {
+        private final List<BoardFilter> filters;
+        private final long generation;
+        private final long loadedAt;
+
+        private Entry(List<BoardFilter> filters, long generation, long loadedAt) {
+            this.filters = filters;
+            this.generation = generation;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
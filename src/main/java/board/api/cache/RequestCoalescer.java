@@ -0,0 +1,139 @@
+package board.api.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Single flight for read queries: while a query is running, callers with an equal key wait for
+ * its result instead of sending the same query again. Nothing is cached, the key is released as
+ * soon as the query completes, so a caller never gets a result of a query that started after
+ * it completed.
+ */
+@Component
+@PropertySource("classpath:board.properties")
+public class RequestCoalescer implements MeterBinder {
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+    @Value("${board.coalescing.enabled}")
+    private boolean enabled;
+
+    /**
+     * Run the query or wait for the running query with an equal key
+     *
+     * @param key - query key, equal keys must mean equal results
+     * @param query - query
+     * @return query result, shared with the other callers of the key
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T coalesce(Object key, Supplier<T> query) {
+        if (!enabled) {
+            return query.get();
+        }
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            collapsed.increment();
+            return (T) join(running);
+        }
+        executed.increment();
+        try {
+            T result = query.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Asynchronous version of {@link #coalesce(Object, Supplier)}
+     *
+     * @param key - query key, equal keys must mean equal results
+     * @param query - query
+     * @return future of the query result, shared with the other callers of the key
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> coalesceAsync(Object key, Supplier<CompletableFuture<T>> query) {
+        if (!enabled) {
+            return query.get();
+        }
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            collapsed.increment();
+            return running.thenApply(result -> (T) result);
+        }
+        executed.increment();
+        CompletableFuture<T> result;
+        try {
+            result = query.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        result.whenComplete((value, e) -> {
+            inFlight.remove(key, future);
+            if (e != null) {
+                future.completeExceptionally(e);
+            } else {
+                future.complete(value);
+            }
+        });
+        return future.thenApply(value -> (T) value);
+    }
+
+    private Object join(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("board.coalescer.requests", executed, LongAdder::sum)
+                .description("Queries sent to the storage")
+                .tag("result", "executed")
+                .register(registry);
+        FunctionCounter.builder("board.coalescer.requests", collapsed, LongAdder::sum)
+                .description("Queries answered by an identical running query")
+                .tag("result", "collapsed")
+                .register(registry);
+        Gauge.builder("board.coalescer.in.flight", inFlight, ConcurrentMap::size)
+                .description("Distinct queries running")
+                .register(registry);
+    }
+
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    public long getCollapsed() {
+        return collapsed.sum();
+    }
+}
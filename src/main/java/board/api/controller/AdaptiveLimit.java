@@ -0,0 +1,79 @@
+package board.api.controller;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to the latency of the admitted requests, additive increase and
+ * multiplicative decrease. A request slower than the latency target, or failed by the server,
+ * shrinks the limit by 10%, at most once per latency target so a burst of slow responses counts
+ * once. While the limit is at least half used and requests are fast, it grows by one per limit
+ * of requests, up to the configured maximum.
+ */
+class AdaptiveLimit {
+
+    private static final double DECREASE = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private long decreasedAt;
+    private int fastRequests;
+
+    AdaptiveLimit(int minLimit, int maxLimit, long latencyTargetNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTargetNanos;
+        this.limit = maxLimit;
+        this.decreasedAt = System.nanoTime() - latencyTargetNanos;
+    }
+
+    /**
+     * @return true when the request is admitted, it has to be released
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release an admitted request
+     *
+     * @param latencyNanos - time the request took
+     * @param failed - request failed on the server side
+     */
+    void release(long latencyNanos, boolean failed) {
+        int used = inFlight.getAndDecrement();
+        update(latencyNanos, failed, used);
+    }
+
+    private synchronized void update(long latencyNanos, boolean failed, int used) {
+        if (failed || latencyNanos > latencyTargetNanos) {
+            long now = System.nanoTime();
+            if (now - decreasedAt >= latencyTargetNanos) {
+                limit = Math.max(minLimit, (int) (limit * DECREASE));
+                decreasedAt = now;
+            }
+            fastRequests = 0;
+        } else if (used * 2 >= limit && ++fastRequests >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+            fastRequests = 0;
+        }
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,124 @@
+package board.api.controller;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control of the handler methods annotated with {@link Admission}. Every group has
+ * an {@link AdaptiveLimit} of concurrent requests, bounded by board.admission.{group}.limit
+ * and adapted to board.admission.{group}.latency.ms. The limit of a group that is not adaptive
+ * stays at board.admission.{group}.limit. Requests over the limit are not queued,
+ * they are rejected with 429 and Retry-After and counted as board.requests.rejected with
+ * reason overload. A permit is held until the request completed, asynchronous requests
+ * included.
+ */
+@Component
+@PropertySource("classpath:board.properties")
+@ConditionalOnProperty(name = "board.admission.enabled", havingValue = "true")
+public class AdmissionControl implements AsyncHandlerInterceptor, MeterBinder {
+
+    private static final String PERMIT = AdmissionControl.class.getName() + ".permit";
+
+    private final Map<AdmissionGroup, AdaptiveLimit> limits = new EnumMap<>(AdmissionGroup.class);
+    private final MeterRegistry registry;
+    @Value("${board.admission.retry.after.s}")
+    private long retryAfterSeconds;
+
+    public AdmissionControl(Environment environment, MeterRegistry registry) {
+        this.registry = registry;
+        int minLimit = environment.getRequiredProperty("board.admission.min.limit", Integer.class);
+        for (AdmissionGroup group : AdmissionGroup.values()) {
+            String prefix = "board.admission." + group.getName();
+            int maxLimit = environment.getRequiredProperty(prefix + ".limit", Integer.class);
+            if (group.isAdaptive()) {
+                long latencyMs = environment.getRequiredProperty(prefix + ".latency.ms", Long.class);
+                limits.put(group, new AdaptiveLimit(minLimit, maxLimit, TimeUnit.MILLISECONDS.toNanos(latencyMs)));
+            } else {
+                limits.put(group, new AdaptiveLimit(maxLimit, maxLimit, Long.MAX_VALUE));
+            }
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!(handler instanceof HandlerMethod) || request.getAttribute(PERMIT) != null) {
+            return true;
+        }
+        Admission admission = ((HandlerMethod) handler).getMethodAnnotation(Admission.class);
+        if (admission == null) {
+            return true;
+        }
+        AdaptiveLimit limit = limits.get(admission.value());
+        if (!limit.tryAcquire()) {
+            registry.counter("board.requests.rejected", "reason", "overload").increment();
+            registry.counter("board.admission.rejected", "group", admission.value().getName()).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(),
+                    "Too many concurrent " + admission.value().getName() + " requests");
+            return false;
+        }
+        request.setAttribute(PERMIT, new Permit(limit, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Permit permit = (Permit) request.getAttribute(PERMIT);
+        if (permit != null) {
+            request.removeAttribute(PERMIT);
+            permit.limit.release(System.nanoTime() - permit.startedAt, isServerFailure(response, ex));
+        }
+    }
+
+    private static boolean isServerFailure(HttpServletResponse response, Exception ex) {
+        if (ex instanceof ElasticsearchStatusException) {
+            return ((ElasticsearchStatusException) ex).status().getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        }
+        if (ex != null) {
+            return !(ex instanceof BadRequestParameterException);
+        }
+        return response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        limits.forEach((group, limit) -> {
+            Gauge.builder("board.admission.limit", limit, AdaptiveLimit::getLimit)
+                    .description("Concurrent requests admitted")
+                    .tag("group", group.getName())
+                    .register(registry);
+            Gauge.builder("board.admission.in.flight", limit, AdaptiveLimit::getInFlight)
+                    .description("Admitted requests in progress")
+                    .tag("group", group.getName())
+                    .register(registry);
+        });
+    }
+
+    private static class Permit {
+        private final AdaptiveLimit limit;
+        private final long startedAt;
+
+        private Permit(AdaptiveLimit limit, long startedAt) {
+            this.limit = limit;
+            this.startedAt = startedAt;
+        }
+    }
+}
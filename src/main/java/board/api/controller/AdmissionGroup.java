@@ -0,0 +1,49 @@
+package board.api.controller;
+
+import java.util.Locale;
+
+/**
+ * Endpoint classes with their own concurrency limit, so a burst in one class can not take the
+ * threads and the Elasticsearch capacity of the others
+ */
+public enum AdmissionGroup {
+    /**
+     * Lookups by id and cached catalogue reads
+     */
+    READ,
+    /**
+     * Listings and full text searches
+     */
+    SEARCH,
+    /**
+     * Single board writes
+     */
+    WRITE,
+    /**
+     * Bulk writes and deletion of all boards
+     */
+    BULK,
+    /**
+     * Imports, exports and random board generation. They take as long as their body, so their
+     * latency says nothing about load and the limit is static.
+     */
+    STREAM(false);
+
+    private final boolean adaptive;
+
+    AdmissionGroup() {
+        this(true);
+    }
+
+    AdmissionGroup(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+}
@@ -0,0 +1,69 @@
+package board.api.controller;
+
+import board.api.elastic.BoardResponse;
+import board.api.model.Board;
+import board.api.service.AsyncBoardService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Read endpoints of {@link BoardController} served without blocking a servlet thread: the
+ * request is put in async mode and completed by the Elasticsearch client callback.
+ * Enabled with board.async.enabled to compare both stacks under the same load. Requests are
+ * admitted in the groups of their blocking counterparts and hold the permit until completed.
+ */
+@RestController
+@CrossOrigin(origins = "*")
+@RequestMapping(path = "/async/boards")
+@ConditionalOnProperty(name = "board.async.enabled", havingValue = "true")
+public class AsyncBoardController {
+
+    private final AsyncBoardService asyncBoardService;
+    private final BoardRequestParameters requestParameters;
+
+    public AsyncBoardController(AsyncBoardService asyncBoardService, BoardRequestParameters requestParameters) {
+        this.asyncBoardService = asyncBoardService;
+        this.requestParameters = requestParameters;
+    }
+
+    @Admission(AdmissionGroup.READ)
+    @GetMapping(value = "/{boardId}")
+    public CompletableFuture<ResponseEntity<ValueResponse<Board>>> getBoardById(
+            @PathVariable(value = "boardId") String boardId) {
+        return asyncBoardService.getBoardById(boardId)
+                .thenApply(board -> ResponseEntity.ok(new ValueResponse<>(board)));
+    }
+
+    @Admission(AdmissionGroup.SEARCH)
+    @GetMapping
+    public CompletableFuture<ResponseEntity<ResultResponse<BoardResponse>>> findBoards(
+            @RequestParam Map<String, String> requestParams) {
+        requestParameters.validateRequestParams(requestParams);
+        return asyncBoardService.getBoardsByFilters(
+                requestParameters.getBoardPageParameters(requestParams),
+                requestParameters.getSearchFilters(requestParams))
+                .thenApply(response -> ResponseEntity.ok(new ResultResponse<>(response)));
+    }
+
+    @Admission(AdmissionGroup.READ)
+    @GetMapping(value = "/filters")
+    public CompletableFuture<ResponseEntity<FiltersResponse>> getFilters() {
+        return asyncBoardService.getFilters()
+                .thenApply(filters -> ResponseEntity.ok(new FiltersResponse(filters)));
+    }
+
+    @Admission(AdmissionGroup.SEARCH)
+    @GetMapping(value = "/search")
+    public CompletableFuture<ResponseEntity<ResultResponse<BoardResponse>>> searchBoards(
+            @RequestParam Map<String, String> requestParams) {
+        requestParameters.validateRequestParams(requestParams);
+        return asyncBoardService.searchBoards(
+                requestParameters.getBoardPageParameters(requestParams),
+                requestParams.get("q"))
+                .thenApply(response -> ResponseEntity.ok(new ResultResponse<>(response)));
+    }
+}
@@ -1,19 +1,49 @@
 package board.api.controller;
 
+import board.api.cache.BoardCacheStats;
+import board.api.elastic.BoardBulkItemResult;
+import board.api.elastic.BoardBulkOperation;
+import board.api.elastic.BoardFit;
+import board.api.elastic.BoardLookup;
 import board.api.elastic.BoardPageParameters;
 import board.api.elastic.BoardResponse;
+import board.api.elastic.IngestReport;
 import board.api.model.Board;
 import board.api.service.BoardService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.elasticsearch.action.support.WriteRequest;
 import org.elasticsearch.action.update.UpdateResponse;
+import org.elasticsearch.index.get.GetResult;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @RestController
 @CrossOrigin(origins = "*")
@@ -21,36 +51,116 @@ import java.util.Optional;
 @PropertySource("classpath:board.properties")
 public class BoardController {
 
+    /**
+     * Fit request parameters, in the order of the fit dimensions
+     */
+    private static final String[] FIT_PARAMS = {"weight", "flex", "waist", "stance"};
+    private static final String EXPORT_TIMEOUT = BoardController.class.getName() + ".exportTimeout";
+
     private final BoardService boardService;
+    private final ObjectMapper objectMapper;
+    private final BoardRequestParameters requestParameters;
 
-    @Value("${board.search.filters}")
-    private List<String> filterNames;
-    @Value("${board.page.request.parameters}")
-    private List<String> pageParameterNames;
+    @Value("${board.export.max.slices}")
+    private int maxExportSlices;
+    @Value("${board.export.timeout.ms}")
+    private long exportTimeoutMs;
+    @Value("${board.mget.max.ids}")
+    private int maxMultiGetIds;
+    @Value("${board.bulk.max.operations}")
+    private int maxBulkOperations;
+    @Value("${board.bulk.refresh}")
+    private String defaultBulkRefresh;
+    @Value("${board.fit.k.default}")
+    private int defaultFitSize;
+    @Value("${board.fit.k.max}")
+    private int maxFitSize;
+    @Value("${board.http.boards.max.age.s}")
+    private long boardsMaxAgeSeconds;
+    @Value("${board.http.catalogue.max.age.s}")
+    private long catalogueMaxAgeSeconds;
 
-    public BoardController(BoardService boardService) {
+    public BoardController(BoardService boardService,
+                           ObjectMapper objectMapper,
+                           BoardRequestParameters requestParameters) {
         this.boardService = boardService;
+        this.objectMapper = objectMapper;
+        this.requestParameters = requestParameters;
     }
 
+    @Admission(AdmissionGroup.STREAM)
     @PostMapping(value = "/addRandom/{num}")
-    public ResponseEntity<HashMap<String, Object>> addBoard(@PathVariable(value = "num") int num) {
-        HashMap<String, Object> result = new HashMap<>();
-        result.put("result", boardService.addRandomBoards(num));
-        return ResponseEntity.ok(result);
+    public ResponseEntity<ResultResponse<Boolean>> addBoard(@PathVariable(value = "num") int num) {
+        return ResponseEntity.ok(new ResultResponse<>(boardService.addRandomBoards(num)));
     }
 
     /**
-     * Get board by id
+     * Import boards from a newline delimited JSON stream, one board per line. The import is not
+     * atomic: it stops at the first malformed line, the boards before it stay indexed and the
+     * 400 response carries their report with the error.
+     *
+     * @param body - NDJSON request body
+     * @return result - ingestion report
+     */
+    @Admission(AdmissionGroup.STREAM)
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "application/json"})
+    public ResponseEntity<ResultResponse<IngestReport>> importBoards(InputStream body) throws IOException {
+        try (MappingIterator<Board> boards = objectMapper.readerFor(Board.class).readValues(body)) {
+            ImportedBoards imported = new ImportedBoards(boards);
+            IngestReport report = boardService.importBoards(imported);
+            if (imported.error != null) {
+                report.setError("Bad board in import body: " + imported.error);
+                return ResponseEntity.badRequest().body(new ResultResponse<>(report));
+            }
+            return ResponseEntity.ok(new ResultResponse<>(report));
+        }
+    }
+
+    /**
+     * Get board by id, the ETag is the version of the stored board
      *
      * @param boardId - board id
-     * @return board
+     * @return board, not modified when If-None-Match has the current version
      */
+    @Admission(AdmissionGroup.READ)
     @GetMapping(value = "/{boardId}")
-    public ResponseEntity<HashMap<String, Object>> getBoardById(@PathVariable(value = "boardId") String boardId) {
-        HashMap<String, Object> result = new HashMap<>();
+    public ResponseEntity<ValueResponse<Board>> getBoardById(@PathVariable(value = "boardId") String boardId,
+                                                             WebRequest request) {
         Board board = boardService.getBoardById(boardId);
-        result.put("value", board);
-        return ResponseEntity.ok(result);
+        if (board == null || board.getVersion() == null) {
+            return ResponseEntity.ok(new ValueResponse<>(board));
+        }
+        return getConditional(request, board.getVersion(), boardsMaxAgeSeconds, () -> new ValueResponse<>(board));
+    }
+
+    /**
+     * Get board cache counters
+     *
+     * @return hits, misses, evictions, size and estimated weight of the board cache
+     */
+    @Admission(AdmissionGroup.READ)
+    @GetMapping(value = "/_cache")
+    public ResponseEntity<ResultResponse<BoardCacheStats>> getBoardCacheStats() {
+        return ResponseEntity.ok(new ResultResponse<>(boardService.getBoardCacheStats()));
+    }
+
+    /**
+     * Get boards by ids with one lookup
+     *
+     * @param body - ids to look up
+     * @return boards in the order of the ids, missing boards are marked as not found
+     */
+    @Admission(AdmissionGroup.READ)
+    @PostMapping(value = "/_mget")
+    public ResponseEntity<ResultResponse<List<BoardLookup>>> getBoardsByIds(@RequestBody HashMap<String, List<String>> body) {
+        List<String> ids = body.get("ids");
+        if (ids == null) {
+            throw new BadRequestParameterException("Missing request field: ids");
+        }
+        if (ids.size() > maxMultiGetIds) {
+            throw new BadRequestParameterException("Too many ids, at most " + maxMultiGetIds + " are allowed");
+        }
+        return ResponseEntity.ok(new ResultResponse<>(boardService.getBoardsByIds(ids)));
     }
 
     /**
@@ -59,13 +169,10 @@ public class BoardController {
      * @param boardId - board id
      * @return result - deleted or not deleted
      */
+    @Admission(AdmissionGroup.WRITE)
     @DeleteMapping(value = "/{boardId}")
-    public ResponseEntity<HashMap<String, Object>> removeBoardById(@PathVariable(value = "boardId") String boardId) {
-        HashMap<String, Object> result = new HashMap<>();
-        if (boardService.removeBoardById(boardId)) {
-            result.put("result", true);
-        }
-        return ResponseEntity.ok(result);
+    public ResponseEntity<ResultResponse<Boolean>> removeBoardById(@PathVariable(value = "boardId") String boardId) {
+        return ResponseEntity.ok(new ResultResponse<>(boardService.removeBoardById(boardId)));
     }
 
     /**
@@ -74,91 +181,270 @@ public class BoardController {
      * @param board - board
      * @return result - added or not added
      */
+    @Admission(AdmissionGroup.WRITE)
     @PostMapping
-    public ResponseEntity<HashMap<String, Object>> addBoard(@RequestBody Board board) {
-        HashMap<String, Object> result = new HashMap<>();
+    public ResponseEntity<IdResponse> addBoard(@RequestBody Board board) {
         String id = boardService.addBoard(board);
-        result.put("id", id);
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(new IdResponse(id));
     }
 
+    @Admission(AdmissionGroup.WRITE)
     @PutMapping(value = "/{boardId}")
-    public ResponseEntity<HashMap<String, Object>> updateBoard(
+    public ResponseEntity<ResultResponse<GetResult>> updateBoard(
             @PathVariable(value = "boardId") String boardId,
             @RequestBody HashMap<String, Object> body) {
-        HashMap<String, Object> result = new HashMap<>();
         UpdateResponse updateResponse = boardService.updateBoard(boardId, body);
-        result.put("result", updateResponse.getGetResult());
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(new ResultResponse<>(updateResponse.getGetResult()));
+    }
+
+    /**
+     * Apply many partial updates and deletes with chunked bulk requests
+     *
+     * @param operations - update operations with a partial doc and delete operations
+     * @param refresh - refresh policy: false, true or wait_for
+     * @return result per operation
+     */
+    @Admission(AdmissionGroup.BULK)
+    @PostMapping(value = "/_bulk")
+    public ResponseEntity<ResultResponse<List<BoardBulkItemResult>>> bulkBoards(
+            @RequestBody List<BoardBulkOperation> operations,
+            @RequestParam(value = "refresh", required = false) String refresh) {
+        if (operations.size() > maxBulkOperations) {
+            throw new BadRequestParameterException("Too many operations, at most " + maxBulkOperations + " are allowed");
+        }
+        operations.forEach(this::validateBulkOperation);
+        return ResponseEntity.ok(new ResultResponse<>(boardService.bulkBoards(operations, getRefreshPolicy(refresh))));
+    }
+
+    private void validateBulkOperation(BoardBulkOperation operation) {
+        if (operation.getId() == null) {
+            throw new BadRequestParameterException("Missing bulk operation field: id");
+        }
+        if (BoardBulkOperation.UPDATE.equals(operation.getAction())) {
+            if (operation.getDoc() == null) {
+                throw new BadRequestParameterException("Missing bulk operation field: doc");
+            }
+        } else if (!BoardBulkOperation.DELETE.equals(operation.getAction())) {
+            throw new BadRequestParameterException("Bad bulk operation action: " + operation.getAction());
+        }
+    }
+
+    private WriteRequest.RefreshPolicy getRefreshPolicy(String refresh) {
+        try {
+            return WriteRequest.RefreshPolicy.parse(Optional.ofNullable(refresh).orElse(defaultBulkRefresh));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestParameterException("Bad request parameter: refresh");
+        }
     }
 
+    @Admission(AdmissionGroup.SEARCH)
     @GetMapping
-    public ResponseEntity<HashMap<String, Object>> findBoards(@RequestParam Map<String, String> requestParams) {
-        HashMap<String, Object> results = new HashMap<>();
-        validateRequestParams(requestParams);
-        BoardPageParameters pageParameters = getBoardPageParameters(requestParams);
-        Map<String, String> searchFilters = getSearchFilters(requestParams);
-        BoardResponse response = boardService.getBoardsByFilters(pageParameters, searchFilters);
-        results.put("result", response);
-        return ResponseEntity.ok(results);
+    public ResponseEntity<ResultResponse<BoardResponse>> findBoards(@RequestParam Map<String, String> requestParams) {
+        requestParameters.validateRequestParams(requestParams);
+        BoardPageParameters pageParameters = requestParameters.getBoardPageParameters(requestParams);
+        Map<String, String> searchFilters = requestParameters.getSearchFilters(requestParams);
+        return getCatalogue(new ResultResponse<>(boardService.getBoardsByFilters(pageParameters, searchFilters)));
     }
 
     /**
-     * Get search filters
+     * Get search filters, the ETag is a hash of the body, see {@link WebConfig}
      *
-     * @return search filters
+     * @return search filters, not modified when If-None-Match has the hash of the current filters
      */
+    @Admission(AdmissionGroup.READ)
     @GetMapping(value = "/filters")
-    public ResponseEntity<HashMap<String, Object>> getFilters() {
-        HashMap<String, Object> result = new HashMap<>();
-        result.put("filters", boardService.getFilters());
-        return ResponseEntity.ok(result);
+    public ResponseEntity<FiltersResponse> getFilters() {
+        return getCatalogue(new FiltersResponse(boardService.getFilters()));
     }
 
+    @Admission(AdmissionGroup.BULK)
     @DeleteMapping
-    public ResponseEntity<HashMap<String, Object>> deleteAllBoards() {
-        HashMap<String, Object> result = new HashMap<>();
-        result.put("result", boardService.deleteAllBoards());
-        return ResponseEntity.ok(result);
+    public ResponseEntity<ResultResponse<Boolean>> deleteAllBoards() {
+        return ResponseEntity.ok(new ResultResponse<>(boardService.deleteAllBoards()));
     }
 
+    @Admission(AdmissionGroup.SEARCH)
     @GetMapping(value = "/search")
-    public ResponseEntity<HashMap<String, Object>> searchBoards(@RequestParam Map<String, String> requestParams) {
-        HashMap<String, Object> results = new HashMap<>();
-        validateRequestParams(requestParams);
-        results.put("result", boardService.searchBoars(getBoardPageParameters(requestParams), requestParams.get("q")));
-        return ResponseEntity.ok(results);
+    public ResponseEntity<ResultResponse<BoardResponse>> searchBoards(@RequestParam Map<String, String> requestParams) {
+        requestParameters.validateRequestParams(requestParams);
+        BoardPageParameters pageParameters = requestParameters.getBoardPageParameters(requestParams);
+        return getCatalogue(new ResultResponse<>(boardService.searchBoars(pageParameters, requestParams.get("q"))));
     }
 
-    private void validateRequestParams(Map<String, String> requestParams) {
-        requestParams.keySet().forEach(this::validateParameter);
+    /**
+     * Conditional GET. The body is only built when If-None-Match does not have the version.
+     * ETags are weak because JSON, Smile and CBOR representations share them.
+     *
+     * @param request - web request
+     * @param version - version of the resource, read before the resource
+     * @param maxAgeSeconds - max-age of the response
+     * @param body - builds the body
+     * @return response, or not modified without a body
+     */
+    private <T> ResponseEntity<T> getConditional(WebRequest request, String version, long maxAgeSeconds,
+                                                 Supplier<T> body) {
+        String eTag = "W/\"" + version + "\"";
+        CacheControl cacheControl = getCacheControl(maxAgeSeconds);
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body.get());
+    }
+
+    /**
+     * Catalogue response, filters and board listings. No instance knows the version of the
+     * catalogue, so the ETag is a hash of the body added by the filter of {@link WebConfig}.
+     */
+    private <T> ResponseEntity<T> getCatalogue(T body) {
+        return ResponseEntity.ok()
+                .cacheControl(getCacheControl(catalogueMaxAgeSeconds))
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
+    private static CacheControl getCacheControl(long maxAgeSeconds) {
+        return CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS).mustRevalidate().cachePublic();
+    }
+
+    /**
+     * Boards that fit a rider, nearest first in weight, flex, waist width and stance width
+     *
+     * @param requestParams - weight, flex, waist and stance, at least one of them, and the number of boards k
+     * @return boards with their distance to the fit
+     */
+    @Admission(AdmissionGroup.READ)
+    @GetMapping(value = "/fit")
+    public ResponseEntity<ResultResponse<List<BoardFit>>> findFittingBoards(@RequestParam Map<String, String> requestParams) {
+        List<String> fitParams = Arrays.asList(FIT_PARAMS);
+        requestParams.keySet().forEach(param -> {
+            if (!fitParams.contains(param) && !"k".equals(param)) {
+                throw new BadRequestParameterException("Bad request parameter: " + param);
+            }
+        });
+        double[] values = new double[FIT_PARAMS.length];
+        for (int i = 0; i < FIT_PARAMS.length; i++) {
+            values[i] = getFitValue(requestParams, FIT_PARAMS[i]);
+        }
+        if (Arrays.stream(values).allMatch(Double::isNaN)) {
+            throw new BadRequestParameterException("Missing request parameter, one of: " + String.join(", ", FIT_PARAMS));
+        }
+        int k = Optional.ofNullable(requestParams.get("k")).map(this::parseFitSize).orElse(defaultFitSize);
+        if (k < 1 || k > maxFitSize) {
+            throw new BadRequestParameterException("Bad request parameter: k");
+        }
+        return getCatalogue(new ResultResponse<>(boardService.getFittingBoards(values, k)));
     }
 
-    private void validateParameter(String param) {
-        if (!pageParameterNames.contains(param)
-                && !filterNames.contains(param)
-                && !"q".equals(param)) {
+    private double getFitValue(Map<String, String> requestParams, String param) {
+        String value = requestParams.get(param);
+        if (value == null) {
+            return Double.NaN;
+        }
+        try {
+            double parsed = Double.parseDouble(value);
+            if (Double.isNaN(parsed) || Double.isInfinite(parsed)) {
+                throw new NumberFormatException(value);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
             throw new BadRequestParameterException("Bad request parameter: " + param);
         }
     }
 
-    private Map<String, String> getSearchFilters(Map<String, String> requestParams) {
-        Map<String, String> searchFilters = new HashMap<>();
-        requestParams.forEach((key, value) -> {
-            if (filterNames.contains(key)) {
-                searchFilters.put(key, value);
+    private int parseSlices(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestParameterException("Bad request parameter: slices");
+        }
+    }
+
+    private int parseFitSize(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestParameterException("Bad request parameter: k");
+        }
+    }
+
+    /**
+     * Stream all boards matching the filters as newline delimited JSON. The export may run for
+     * up to board.export.timeout.ms, other asynchronous requests keep the default timeout.
+     *
+     * @param requestParams - search filters and number of parallel scroll slices
+     * @return boards, one per line
+     */
+    @Admission(AdmissionGroup.STREAM)
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportBoards(@RequestParam Map<String, String> requestParams,
+                                                              HttpServletRequest request) {
+        requestParams.keySet().forEach(param -> {
+            if (!requestParameters.isFilter(param) && !"slices".equals(param)) {
+                throw new BadRequestParameterException("Bad request parameter: " + param);
             }
         });
-        return searchFilters;
+        int slices = Optional.ofNullable(requestParams.get("slices")).map(this::parseSlices).orElse(1);
+        if (slices < 1 || slices > maxExportSlices) {
+            throw new BadRequestParameterException("Bad request parameter: slices");
+        }
+        Map<String, String> searchFilters = requestParameters.getSearchFilters(requestParams);
+        StreamingResponseBody body = out -> boardService.exportBoards(searchFilters, slices, out);
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(EXPORT_TIMEOUT,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest asyncRequest, Callable<T> task) {
+                        ((AsyncWebRequest) asyncRequest).setTimeout(exportTimeoutMs);
+                    }
+                });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
 
-    private BoardPageParameters getBoardPageParameters(Map<String, String> requestParams) {
-        BoardPageParameters parameters = new BoardPageParameters();
-        parameters.setPage(Optional.ofNullable(requestParams.get("page")).map(Integer::parseInt).orElse(0));
-        parameters.setPageSize(Optional.ofNullable(requestParams.get("pageSize")).map(Integer::parseInt).orElse(9));
-        parameters.setSortBy(Optional.ofNullable(requestParams.get("sortBy")).orElse("year"));
-        parameters.setSortOrder(Optional.ofNullable(requestParams.get("sortOrder")).orElse("desc"));
-        return parameters;
-    }
+    /**
+     * Boards of an import body up to its first malformed line
+     */
+    private static class ImportedBoards implements Iterator<Board> {
+        private final MappingIterator<Board> boards;
+        private Board next;
+        private String error;
+
+        private ImportedBoards(MappingIterator<Board> boards) {
+            this.boards = boards;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && error == null) {
+                try {
+                    next = boards.hasNext() ? boards.next() : null;
+                } catch (RuntimeException e) {
+                    // MappingIterator wraps malformed JSON into a plain RuntimeException
+                    if (!(e.getCause() instanceof JsonProcessingException)) {
+                        throw e;
+                    }
+                    error = e.getCause().getMessage();
+                }
+            }
+            return next != null;
+        }
 
+        @Override
+        public Board next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Board board = next;
+            next = null;
+            return board;
+        }
+    }
 }
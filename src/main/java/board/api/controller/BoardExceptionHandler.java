@@ -0,0 +1,39 @@
+package board.api.controller;
+
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.rest.RestStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Answers bad request parameters and bodies with 400, and Elasticsearch status failures with
+ * their status instead of 500, so a client told to back off with 429, or 503 while an index
+ * is not loaded, gets a Retry-After of board.http.retry.after.s.
+ */
+@RestControllerAdvice
+@PropertySource("classpath:board.properties")
+public class BoardExceptionHandler {
+
+    @Value("${board.http.retry.after.s}")
+    private long retryAfterSeconds;
+
+    @ExceptionHandler(BadRequestParameterException.class)
+    public void handleBadRequest(BadRequestParameterException e, HttpServletResponse response) throws IOException {
+        response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+    }
+
+    @ExceptionHandler(ElasticsearchStatusException.class)
+    public void handleStatus(ElasticsearchStatusException e, HttpServletResponse response) throws IOException {
+        if (e.status() == RestStatus.TOO_MANY_REQUESTS || e.status() == RestStatus.SERVICE_UNAVAILABLE) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        }
+        response.sendError(e.status().getStatus(), e.getMessage());
+    }
+}
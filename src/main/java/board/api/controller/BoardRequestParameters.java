@@ -0,0 +1,134 @@
+package board.api.controller;
+
+import board.api.elastic.BoardCursor;
+import board.api.elastic.BoardPageParameters;
+import board.api.elastic.BoardSearchFilters;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Validates and parses the listing and search request parameters of the board controllers.
+ * Filters take comma separated values, ranges are bounded with &lt;field&gt;.min and
+ * &lt;field&gt;.max parameters, for example terrain=Powder,Freeride&amp;spec.flex.max=5.
+ */
+@Component
+@PropertySource("classpath:board.properties")
+public class BoardRequestParameters {
+
+    @Value("${board.search.filters}")
+    private List<String> filterNames;
+    @Value("${board.search.ranges}")
+    private List<String> rangeNames;
+    @Value("${board.page.request.parameters}")
+    private List<String> pageParameterNames;
+    @Value("${board.response.fields}")
+    private List<String> responseFieldNames;
+
+    public boolean isFilter(String param) {
+        return filterNames.contains(param) || isRange(param);
+    }
+
+    private boolean isRange(String param) {
+        return BoardSearchFilters.isRange(param) && rangeNames.contains(BoardSearchFilters.getRangeField(param));
+    }
+
+    public void validateRequestParams(Map<String, String> requestParams) {
+        requestParams.forEach(this::validateParameter);
+    }
+
+    private void validateParameter(String param, String value) {
+        if (!pageParameterNames.contains(param)
+                && !isFilter(param)
+                && !"q".equals(param)) {
+            throw new BadRequestParameterException("Bad request parameter: " + param);
+        }
+        if ("fields".equals(param)) {
+            getFields(value).forEach(field -> {
+                if (!responseFieldNames.contains(field.split("\\.")[0])) {
+                    throw new BadRequestParameterException("Bad response field: " + field);
+                }
+            });
+        }
+    }
+
+    private List<String> getFields(String fields) {
+        return Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    public Map<String, String> getSearchFilters(Map<String, String> requestParams) {
+        Map<String, String> searchFilters = new HashMap<>();
+        requestParams.forEach((key, value) -> {
+            if (isFilter(key)) {
+                validateFilterValue(key, value);
+                searchFilters.put(key, value);
+            }
+        });
+        return searchFilters;
+    }
+
+    private void validateFilterValue(String param, String value) {
+        if (filterNames.contains(param) && BoardSearchFilters.getValues(value).isEmpty()) {
+            throw new BadRequestParameterException("Bad filter value: " + param);
+        }
+        if (isRange(param)) {
+            try {
+                Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw new BadRequestParameterException("Bad range value: " + param);
+            }
+        }
+    }
+
+    public BoardPageParameters getBoardPageParameters(Map<String, String> requestParams) {
+        BoardPageParameters parameters = new BoardPageParameters();
+        parameters.setPage(Optional.ofNullable(requestParams.get("page")).map(page -> parseInt("page", page)).orElse(0));
+        parameters.setPageSize(Optional.ofNullable(requestParams.get("pageSize"))
+                .map(pageSize -> parseInt("pageSize", pageSize))
+                .orElse(9));
+        parameters.setSortBy(Optional.ofNullable(requestParams.get("sortBy")).orElse("year"));
+        parameters.setSortOrder(Optional.ofNullable(requestParams.get("sortOrder")).orElse("desc"));
+        if (requestParams.containsKey("fields")) {
+            parameters.setFields(getFields(requestParams.get("fields")));
+        }
+        if (requestParams.containsKey("cursor")) {
+            parameters.setCursor(getCursor(requestParams.get("cursor"), parameters));
+        }
+        return parameters;
+    }
+
+    private static int parseInt(String param, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestParameterException("Bad request parameter: " + param);
+        }
+    }
+
+    private BoardCursor getCursor(String cursorParam, BoardPageParameters parameters) {
+        if (cursorParam.isEmpty()) {
+            return new BoardCursor(parameters.getSortBy(), parameters.getSortOrder(), null);
+        }
+        BoardCursor cursor;
+        try {
+            cursor = BoardCursor.decode(cursorParam);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestParameterException("Bad request parameter: cursor");
+        }
+        if (!parameters.getSortBy().equals(cursor.getSortBy())
+                || !parameters.getSortOrder().equals(cursor.getSortOrder())) {
+            throw new BadRequestParameterException("Cursor was issued for another sort");
+        }
+        return cursor;
+    }
+}
@@ -0,0 +1,15 @@
+package board.api.controller;
+
+import board.api.elastic.BoardFilter;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class FiltersResponse {
+    private final List<BoardFilter> filters;
+
+    public FiltersResponse(List<BoardFilter> filters) {
+        this.filters = filters;
+    }
+}
@@ -0,0 +1,12 @@
+package board.api.controller;
+
+import lombok.Data;
+
+@Data
+public class IdResponse {
+    private final String id;
+
+    public IdResponse(String id) {
+        this.id = id;
+    }
+}
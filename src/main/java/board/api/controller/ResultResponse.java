@@ -0,0 +1,12 @@
+package board.api.controller;
+
+import lombok.Data;
+
+@Data
+public class ResultResponse<T> {
+    private final T result;
+
+    public ResultResponse(T result) {
+        this.result = result;
+    }
+}
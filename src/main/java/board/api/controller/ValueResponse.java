@@ -0,0 +1,12 @@
+package board.api.controller;
+
+import lombok.Data;
+
+@Data
+public class ValueResponse<T> {
+    private final T value;
+
+    public ValueResponse(T value) {
+        this.value = value;
+    }
+}
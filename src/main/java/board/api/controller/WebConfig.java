@@ -0,0 +1,56 @@
+package board.api.controller;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Binary response formats, negotiated by the Accept header
+ * (application/x-jackson-smile, application/cbor). JSON stays the default.
+ * Admission control runs before the handlers when it is enabled. Catalogue responses get a
+ * weak ETag hashed from their body, which holds across instances and restarts.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private static final String[] CATALOGUE_PATHS = {"/boards", "/boards/filters", "/boards/search", "/boards/fit"};
+
+    private final ObjectProvider<AdmissionControl> admissionControl;
+
+    public WebConfig(ObjectProvider<AdmissionControl> admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        admissionControl.ifAvailable(registry::addInterceptor);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> catalogueEtagFilter() {
+        ShallowEtagHeaderFilter filter = new ShallowEtagHeaderFilter();
+        filter.setWriteWeakETag(true);
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns(CATALOGUE_PATHS);
+        return registration;
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -0,0 +1,85 @@
+package board.api.dao;
+
+import board.api.elastic.BoardFilter;
+import board.api.elastic.BoardPageParameters;
+import board.api.elastic.BoardResponse;
+import board.api.model.Board;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of the board read operations. Requests go through the async API of
+ * the REST client, whose I/O reactor completes the returned futures, so no caller thread waits
+ * for Elasticsearch.
+ */
+@Component
+@ConditionalOnProperty(name = "board.async.enabled", havingValue = "true")
+public class AsyncBoardDao {
+
+    private final RestHighLevelClient client;
+    private final BoardQueries boardQueries;
+    private final BoardResponseMapper responseMapper;
+
+    public AsyncBoardDao(RestHighLevelClient client, BoardQueries boardQueries, BoardResponseMapper responseMapper) {
+        this.client = client;
+        this.boardQueries = boardQueries;
+        this.responseMapper = responseMapper;
+    }
+
+    public CompletableFuture<Board> findBoardById(String id) {
+        ElasticsearchPersistentEntity<?> entity = boardQueries.getBoardEntity();
+        CompletableFuture<GetResponse> future = new CompletableFuture<>();
+        client.getAsync(new GetRequest(entity.getIndexName(), entity.getIndexType(), id),
+                RequestOptions.DEFAULT, getListener(future));
+        return future.thenApply(response -> response.isExists()
+                ? responseMapper.toBoard(response.getId(), response.getSourceAsString())
+                : null);
+    }
+
+    public CompletableFuture<List<BoardFilter>> findFilters() {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(QueryBuilders.matchAllQuery())
+                .size(0);
+        boardQueries.addFilterAggregations(source, Collections.emptyMap());
+        return search(source).thenApply(response ->
+                responseMapper.getFilters(response.getAggregations(), Collections.emptyMap()));
+    }
+
+    public CompletableFuture<BoardResponse> findBoards(BoardPageParameters pageParameters,
+                                                       Map<String, String> searchFilters) {
+        SearchSourceBuilder source = boardQueries.getSearchSource(pageParameters, searchFilters, true);
+        return search(source).thenApply(response ->
+                responseMapper.creatBoardResponse(response, pageParameters, searchFilters));
+    }
+
+    public CompletableFuture<BoardResponse> searchBoards(BoardPageParameters pageParameters, String q) {
+        SearchSourceBuilder source = boardQueries.getSearchSource(
+                boardQueries.getQueryForSearchKey(q), pageParameters);
+        return search(source).thenApply(response ->
+                responseMapper.creatBoardResponse(response, pageParameters, null));
+    }
+
+    private CompletableFuture<SearchResponse> search(SearchSourceBuilder source) {
+        CompletableFuture<SearchResponse> future = new CompletableFuture<>();
+        client.searchAsync(boardQueries.getSearchRequest(source), RequestOptions.DEFAULT, getListener(future));
+        return future;
+    }
+
+    private <T> ActionListener<T> getListener(CompletableFuture<T> future) {
+        return ActionListener.wrap(future::complete, future::completeExceptionally);
+    }
+}
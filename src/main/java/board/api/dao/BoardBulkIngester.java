@@ -0,0 +1,194 @@
+package board.api.dao;
+
+import board.api.elastic.IngestReport;
+import board.api.model.Board;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams boards into the index through a {@link BulkProcessor}. Boards are pulled from the
+ * iterator one by one, grouped into bulk requests capped by document count and size, at most
+ * {@code board.ingest.concurrent.requests} bulk requests are in flight (adding blocks until one
+ * completes) and items rejected by a full write queue are retried with exponential backoff.
+ * When the bulk requests in flight are not done within {@code board.ingest.await.close.minutes}
+ * the report is returned incomplete, with the boards not yet acknowledged counted as pending.
+ */
+@Component
+@PropertySource("classpath:board.properties")
+public class BoardBulkIngester {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BoardBulkIngester.class);
+
+    private final RestHighLevelClient client;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<BoardWriteListener> writeListeners;
+    @Value("${board.ingest.bulk.actions}")
+    private int bulkActions;
+    @Value("${board.ingest.bulk.size.mb}")
+    private long bulkSizeMb;
+    @Value("${board.ingest.concurrent.requests}")
+    private int concurrentRequests;
+    @Value("${board.ingest.retry.initial.delay.ms}")
+    private long retryInitialDelayMs;
+    @Value("${board.ingest.retry.max}")
+    private int retryMax;
+    @Value("${board.ingest.progress.every}")
+    private long progressEvery;
+    @Value("${board.ingest.await.close.minutes}")
+    private long awaitCloseMinutes;
+
+    public BoardBulkIngester(RestHighLevelClient client,
+                             ElasticsearchOperations elasticsearchOperations,
+                             ObjectMapper objectMapper,
+                             ObjectProvider<BoardWriteListener> writeListeners) {
+        this.client = client;
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.objectMapper = objectMapper;
+        this.writeListeners = writeListeners;
+    }
+
+    public IngestReport ingest(Iterator<Board> boards) {
+        ElasticsearchPersistentEntity<?> entity = elasticsearchOperations.getPersistentEntityFor(Board.class);
+        Progress progress = new Progress();
+        BulkProcessor bulkProcessor = BulkProcessor.builder(
+                (request, listener) -> client.bulkAsync(request, RequestOptions.DEFAULT, listener), progress)
+                .setBulkActions(bulkActions)
+                .setBulkSize(new ByteSizeValue(bulkSizeMb, ByteSizeUnit.MB))
+                .setConcurrentRequests(concurrentRequests)
+                .setBackoffPolicy(BackoffPolicy.exponentialBackoff(
+                        TimeValue.timeValueMillis(retryInitialDelayMs), retryMax))
+                .build();
+        boolean complete;
+        try {
+            while (boards.hasNext()) {
+                bulkProcessor.add(getIndexRequest(entity, boards.next()));
+                progress.submitted.incrementAndGet();
+            }
+        } finally {
+            complete = awaitClose(bulkProcessor);
+        }
+        return progress.getReport(complete);
+    }
+
+    private IndexRequest getIndexRequest(ElasticsearchPersistentEntity<?> entity, Board board) {
+        if (board.getId() == null) {
+            board.setId(UUID.randomUUID().toString());
+        }
+        try {
+            return new IndexRequest(entity.getIndexName(), entity.getIndexType(), board.getId())
+                    .source(objectMapper.writeValueAsBytes(board), XContentType.JSON);
+        } catch (JsonProcessingException e) {
+            throw new ElasticsearchException("Failed to serialize board " + board.getId(), e);
+        }
+    }
+
+    private boolean awaitClose(BulkProcessor bulkProcessor) {
+        try {
+            if (!bulkProcessor.awaitClose(awaitCloseMinutes, TimeUnit.MINUTES)) {
+                LOG.warn("Bulk ingestion did not complete within {} minutes", awaitCloseMinutes);
+                return false;
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElasticsearchException("Bulk ingestion interrupted", e);
+        }
+    }
+
+    private class Progress implements BulkProcessor.Listener {
+        private final long startedAt = System.currentTimeMillis();
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong indexed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong bulkRequests = new AtomicLong();
+        private final AtomicLong lastReported = new AtomicLong();
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request) {
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            long failedItems = 0;
+            BulkItemResponse[] items = response.getItems();
+            for (int i = 0; i < items.length; i++) {
+                if (items[i].isFailed()) {
+                    failedItems++;
+                } else {
+                    notifyIndexed((IndexRequest) request.requests().get(i));
+                }
+            }
+            if (failedItems > 0) {
+                LOG.warn("Bulk request {} failed for {} of {} boards: {}",
+                        executionId, failedItems, request.numberOfActions(), response.buildFailureMessage());
+            }
+            record(request.numberOfActions() - failedItems, failedItems);
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+            LOG.error("Bulk request {} of {} boards failed", executionId, request.numberOfActions(), failure);
+            record(0, request.numberOfActions());
+        }
+
+        private void notifyIndexed(IndexRequest request) {
+            writeListeners.orderedStream().forEach(listener -> listener.onIndexed(request.id(), request.sourceAsMap()));
+        }
+
+        private void record(long indexedItems, long failedItems) {
+            bulkRequests.incrementAndGet();
+            failed.addAndGet(failedItems);
+            long total = indexed.addAndGet(indexedItems) + failed.get();
+            long reported = lastReported.get();
+            if (total - reported >= progressEvery && lastReported.compareAndSet(reported, total)) {
+                LOG.info("Bulk ingestion progress: {} indexed, {} failed, {} boards/s",
+                        indexed.get(), failed.get(), getBoardsPerSecond(indexed.get()));
+            }
+        }
+
+        private double getBoardsPerSecond(long boards) {
+            long tookMs = Math.max(1, System.currentTimeMillis() - startedAt);
+            return boards * 1000.0 / tookMs;
+        }
+
+        private IngestReport getReport(boolean complete) {
+            IngestReport report = new IngestReport();
+            report.setIndexed(indexed.get());
+            report.setFailed(failed.get());
+            report.setPending(Math.max(0, submitted.get() - indexed.get() - failed.get()));
+            report.setComplete(complete);
+            report.setBulkRequests(bulkRequests.get());
+            report.setTookMs(System.currentTimeMillis() - startedAt);
+            report.setBoardsPerSecond(getBoardsPerSecond(indexed.get()));
+            LOG.info("Bulk ingestion finished: {}", report);
+            return report;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package board.api.dao;
+
+import board.api.elastic.BoardCursor;
+import board.api.elastic.BoardPageParameters;
+import board.api.elastic.BoardSearchFilters;
+import board.api.model.Board;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.common.unit.Fuzziness;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptType;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.ScriptSortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
+import org.springframework.data.elasticsearch.core.query.SourceFilter;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the board queries, sorts and filter aggregations shared by the blocking and the
+ * asynchronous board DAO. Selected filters run in filter context, so they do not score and
+ * their bitsets are cached by Elasticsearch.
+ */
+@Component
+@PropertySource("classpath:board.properties")
+public class BoardQueries {
+
+    private static final int FILTER_SIZE = 100;
+    /**
+     * Squared fit distance of a board source like {@link FitTree#distance}, boards missing a fit
+     * field sort last with the largest double. Stance is not kept in doc values, so the source
+     * is read for all dimensions.
+     */
+    private static final String FIT_DISTANCE_SCRIPT =
+            "def spec = params._source.spec;"
+                    + "if (spec == null || spec.weightRange == null || spec.flex == null || spec.waistWidth == null"
+                    + " || spec.stance == null || spec.stance.min == null || spec.stance.max == null) {"
+                    + " return Double.MAX_VALUE; }"
+                    + "double[] fields = new double[] {spec.weightRange, spec.flex, spec.waistWidth,"
+                    + " (spec.stance.min + spec.stance.max) / 2.0};"
+                    + "double sum = 0;"
+                    + "for (int i = 0; i < fields.length; i++) {"
+                    + " if (params.query[i] != null) {"
+                    + " double difference = params.query[i] - fields[i] / params.scales[i];"
+                    + " sum += difference * difference; } }"
+                    + "return sum;";
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    @Value("${board.search.filters}")
+    private List<String> filterNames;
+    @Value("${board.search.fields}")
+    private List<String> searchFields;
+    @Value("${board.cursor.tiebreaker.field}")
+    private String tiebreakerField;
+    @Value("${board.fit.scales}")
+    private double[] fitScales;
+
+    public BoardQueries(ElasticsearchOperations elasticsearchOperations) {
+        this.elasticsearchOperations = elasticsearchOperations;
+    }
+
+    public QueryBuilder getQueryForFilters(Map<String, String> searchFilters) {
+        return getQueryForFilters(searchFilters, key -> true);
+    }
+
+    /**
+     * Query of the range filters. The term filters of a listing with filter counts go to the
+     * post filter instead, so every filter can be counted without its own selection.
+     *
+     * @param searchFilters - selected filters
+     * @return query
+     */
+    public QueryBuilder getQueryForRanges(Map<String, String> searchFilters) {
+        return getQueryForFilters(searchFilters, BoardSearchFilters::isRange);
+    }
+
+    /**
+     * Post filter of the term filters
+     *
+     * @param searchFilters - selected filters
+     * @return post filter, null when no term filter is selected
+     */
+    public QueryBuilder getPostFilter(Map<String, String> searchFilters) {
+        if (searchFilters.keySet().stream().allMatch(BoardSearchFilters::isRange)) {
+            return null;
+        }
+        return getQueryForFilters(searchFilters, key -> !BoardSearchFilters.isRange(key));
+    }
+
+    private BoolQueryBuilder getQueryForFilters(Map<String, String> searchFilters, Predicate<String> keys) {
+        BoolQueryBuilder boolQueryBuilder = QueryBuilders.boolQuery();
+        searchFilters.forEach((key, value) -> {
+            if (keys.test(key)) {
+                boolQueryBuilder.filter(getFilterQuery(key, value));
+            }
+        });
+        return boolQueryBuilder;
+    }
+
+    private QueryBuilder getFilterQuery(String key, String value) {
+        if (!BoardSearchFilters.isRange(key)) {
+            return QueryBuilders.termsQuery(key, BoardSearchFilters.getValues(value));
+        }
+        RangeQueryBuilder range = QueryBuilders.rangeQuery(BoardSearchFilters.getRangeField(key));
+        return BoardSearchFilters.isMin(key) ? range.gte(value) : range.lte(value);
+    }
+
+    /**
+     * Fuzzy match of the search key against the search fields. The key is analyzed per field,
+     * so analyzed fields get their own analyzer and keyword fields match the whole value.
+     *
+     * @param key - search key
+     * @return query
+     */
+    public QueryBuilder getQueryForSearchKey(String key) {
+        return QueryBuilders.multiMatchQuery(key, searchFields.toArray(new String[0]))
+                .fuzziness(Fuzziness.AUTO);
+    }
+
+    public void addFilterAggregations(NativeSearchQueryBuilder nativeSearchQueryBuilder,
+                                      Map<String, String> searchFilters) {
+        filterNames.forEach((filterName) ->
+                nativeSearchQueryBuilder.addAggregation(getFilterAggregation(filterName, searchFilters)));
+    }
+
+    public void addFilterAggregations(SearchSourceBuilder source, Map<String, String> searchFilters) {
+        filterNames.forEach(filterName -> source.aggregation(getFilterAggregation(filterName, searchFilters)));
+    }
+
+    /**
+     * Terms of a filter over the boards matching the other term filters, so the values of a
+     * selected filter keep their counts and more of them can be selected. The terms are
+     * wrapped in a filter aggregation of the same name when other term filters are selected.
+     */
+    private AbstractAggregationBuilder<?> getFilterAggregation(String filterName, Map<String, String> searchFilters) {
+        AbstractAggregationBuilder<?> terms = AggregationBuilders
+                .terms(filterName)
+                .field(filterName)
+                .size(FILTER_SIZE);
+        BoolQueryBuilder others = getQueryForFilters(searchFilters,
+                key -> !BoardSearchFilters.isRange(key) && !key.equals(filterName));
+        if (others.filter().isEmpty()) {
+            return terms;
+        }
+        return AggregationBuilders.filter(filterName, others).subAggregation(terms);
+    }
+
+    public FieldSortBuilder getSort(BoardPageParameters pageParameters) {
+        return SortBuilders
+                .fieldSort(pageParameters.getSortBy())
+                .order(SortOrder.fromString(pageParameters.getSortOrder()));
+    }
+
+    /**
+     * Sort by the squared fit distance to the query, nearest first
+     *
+     * @param values - weight, flex, waist width and stance width, NaN to ignore a dimension
+     * @return script sort over the source of every board
+     */
+    public ScriptSortBuilder getFitSort(double[] values) {
+        double[] query = FitTree.toQuery(values, fitScales);
+        Map<String, Object> params = new HashMap<>();
+        params.put("query", Arrays.stream(query).mapToObj(value -> Double.isNaN(value) ? null : value)
+                .collect(Collectors.toList()));
+        params.put("scales", fitScales);
+        return SortBuilders
+                .scriptSort(new Script(ScriptType.INLINE, Script.DEFAULT_SCRIPT_LANG, FIT_DISTANCE_SCRIPT, params),
+                        ScriptSortBuilder.ScriptSortType.NUMBER)
+                .order(SortOrder.ASC);
+    }
+
+    public Pageable getPageable(BoardPageParameters pageParameters) {
+        return PageRequest.of(pageParameters.getPage(), pageParameters.getPageSize());
+    }
+
+    /**
+     * Source filter for the requested fields
+     *
+     * @param pageParameters - page parameters
+     * @return source filter, null when the whole board is requested
+     */
+    public SourceFilter getSourceFilter(BoardPageParameters pageParameters) {
+        if (pageParameters.getFields() == null) {
+            return null;
+        }
+        return new FetchSourceFilter(pageParameters.getFields().toArray(new String[0]), null);
+    }
+
+    /**
+     * Search source for one page. In cursor mode the page is selected with search_after on
+     * the requested sort plus the id tiebreaker, so a deep page costs the same as the first
+     * one and is not limited by max_result_window.
+     *
+     * @param query - board query
+     * @param pageParameters - page, sort and cursor
+     * @return search source
+     */
+    public SearchSourceBuilder getSearchSource(QueryBuilder query, BoardPageParameters pageParameters) {
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(query)
+                .size(pageParameters.getPageSize())
+                .sort(getSort(pageParameters));
+        BoardCursor cursor = pageParameters.getCursor();
+        if (cursor == null) {
+            source.from(pageParameters.getPage() * pageParameters.getPageSize());
+        } else {
+            source.sort(SortBuilders.fieldSort(tiebreakerField).order(SortOrder.ASC));
+            if (!cursor.isFirstPage()) {
+                source.searchAfter(cursor.getSearchAfter());
+            }
+        }
+        if (pageParameters.getFields() != null) {
+            source.fetchSource(pageParameters.getFields().toArray(new String[0]), null);
+        }
+        return source;
+    }
+
+    /**
+     * Search source for one page of the boards matching the filters. Filters are aggregated
+     * for page mode and for the first cursor page, then the term filters move to the post
+     * filter.
+     *
+     * @param pageParameters - page, sort and cursor
+     * @param searchFilters - selected filters
+     * @param aggregateFilters - whether filter counts are requested
+     * @return search source
+     */
+    public SearchSourceBuilder getSearchSource(BoardPageParameters pageParameters,
+                                               Map<String, String> searchFilters,
+                                               boolean aggregateFilters) {
+        if (!isAggregated(pageParameters, aggregateFilters)) {
+            return getSearchSource(getQueryForFilters(searchFilters), pageParameters);
+        }
+        SearchSourceBuilder source = getSearchSource(getQueryForRanges(searchFilters), pageParameters)
+                .postFilter(getPostFilter(searchFilters));
+        addFilterAggregations(source, searchFilters);
+        return source;
+    }
+
+    private boolean isAggregated(BoardPageParameters pageParameters, boolean aggregateFilters) {
+        BoardCursor cursor = pageParameters.getCursor();
+        return aggregateFilters && (cursor == null || cursor.isFirstPage());
+    }
+
+    public SearchRequest getSearchRequest(SearchSourceBuilder source) {
+        ElasticsearchPersistentEntity<?> entity = getBoardEntity();
+        return new SearchRequest(entity.getIndexName())
+                .types(entity.getIndexType())
+                .source(source);
+    }
+
+    public ElasticsearchPersistentEntity<?> getBoardEntity() {
+        return elasticsearchOperations.getPersistentEntityFor(Board.class);
+    }
+}
@@ -0,0 +1,116 @@
+package board.api.dao;
+
+import board.api.elastic.BoardCursor;
+import board.api.elastic.BoardFilter;
+import board.api.elastic.BoardPageParameters;
+import board.api.elastic.BoardResponse;
+import board.api.model.Board;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.util.internal.StringUtil;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.SingleBucketAggregation;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Maps Elasticsearch responses into boards, board pages and filters.
+ */
+@Component
+public class BoardResponseMapper {
+
+    private final ObjectMapper objectMapper;
+
+    public BoardResponseMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Builds the response page straight from the search response, so hits, total and
+     * aggregations of one request are read from a single round trip
+     *
+     * @param searchResponse - search response
+     * @param pageParameters - requested page
+     * @param searchFilters - selected filters, null when filters were not aggregated
+     * @return board response
+     */
+    public BoardResponse creatBoardResponse(SearchResponse searchResponse,
+                                            BoardPageParameters pageParameters,
+                                            Map<String, String> searchFilters) {
+        SearchHits hits = searchResponse.getHits();
+        BoardResponse response = new BoardResponse();
+        response.setValues(Arrays.stream(hits.getHits())
+                .map(hit -> pageParameters.getFields() == null ? toBoard(hit) : toProjection(hit))
+                .collect(Collectors.toList()));
+        response.setPage(pageParameters.getPage());
+        response.setPageSize(pageParameters.getPageSize());
+        response.setTotal(hits.getTotalHits());
+        response.setTotalPages(pageParameters.getPageSize() == 0 ? 1
+                : (int) Math.ceil((double) hits.getTotalHits() / pageParameters.getPageSize()));
+        if (searchFilters != null && searchResponse.getAggregations() != null) {
+            response.setFilters(getFilters(searchResponse.getAggregations(), searchFilters));
+        }
+        SearchHit[] pageHits = hits.getHits();
+        if (pageParameters.getCursor() != null
+                && pageHits.length > 0
+                && pageHits.length == pageParameters.getPageSize()) {
+            response.setNextCursor(new BoardCursor(
+                    pageParameters.getSortBy(),
+                    pageParameters.getSortOrder(),
+                    pageHits[pageHits.length - 1].getSortValues()).encode());
+        }
+        return response;
+    }
+
+    public List<BoardFilter> getFilters(Aggregations aggregations, Map<String, String> searchFilters) {
+        return aggregations.asMap().entrySet().stream()
+                .map(entry -> new BoardFilter(entry.getKey(), getFilterValues(entry.getValue())))
+                .peek(filter ->
+                        filter.setSelectedValue(Optional.ofNullable(searchFilters.get(filter.getName()))
+                                .orElse(StringUtil.EMPTY_STRING)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Buckets of a filter, the terms are wrapped in a filter aggregation of the same name
+     * when other filters are selected
+     */
+    private Map<String, Long> getFilterValues(Aggregation aggregation) {
+        if (aggregation instanceof SingleBucketAggregation) {
+            aggregation = ((SingleBucketAggregation) aggregation).getAggregations().get(aggregation.getName());
+        }
+        return ((Terms) aggregation).getBuckets().stream()
+                .collect(Collectors.toMap(Terms.Bucket::getKeyAsString, Terms.Bucket::getDocCount));
+    }
+
+    private Map<String, Object> toProjection(SearchHit hit) {
+        Map<String, Object> projection = hit.getSourceAsMap();
+        projection.put("id", hit.getId());
+        return projection;
+    }
+
+    public Board toBoard(SearchHit hit) {
+        return toBoard(hit.getId(), hit.getSourceAsString());
+    }
+
+    public Board toBoard(String id, String source) {
+        try {
+            Board board = objectMapper.readValue(source, Board.class);
+            board.setId(id);
+            return board;
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to map board " + id, e);
+        }
+    }
+}
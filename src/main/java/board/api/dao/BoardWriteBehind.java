@@ -0,0 +1,221 @@
+package board.api.dao;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Batches single board writes into bulk requests. Writes wait in a bounded queue until
+ * board.writebehind.batch.size of them are queued or board.writebehind.window.ms passed since
+ * the first one, then they are sent as one bulk request without a refresh. Every caller waits
+ * for the result of its own item, so a write is acknowledged only once Elasticsearch has it.
+ * A write that finds the queue full for board.writebehind.offer.timeout.ms is rejected with
+ * 429 Too Many Requests, a write without a result after board.writebehind.write.timeout.ms
+ * fails with 504 Gateway Timeout. A timed out write that is still queued is taken out of the
+ * queue and never applied, one already sent in a bulk request may still be applied.
+ */
+@Component
+@PropertySource("classpath:board.properties")
+@ConditionalOnProperty(name = "board.writebehind.enabled", havingValue = "true")
+public class BoardWriteBehind implements MeterBinder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BoardWriteBehind.class);
+
+    private final RestHighLevelClient client;
+    private BlockingQueue<PendingWrite> queue;
+    private Thread flusher;
+    private volatile boolean running;
+    private Counter rejected;
+    private DistributionSummary batchSizes;
+    @Value("${board.writebehind.queue.capacity}")
+    private int queueCapacity;
+    @Value("${board.writebehind.batch.size}")
+    private int batchSize;
+    @Value("${board.writebehind.window.ms}")
+    private long windowMs;
+    @Value("${board.writebehind.offer.timeout.ms}")
+    private long offerTimeoutMs;
+    @Value("${board.writebehind.write.timeout.ms}")
+    private long writeTimeoutMs;
+    @Value("${board.writebehind.shutdown.timeout.ms}")
+    private long shutdownTimeoutMs;
+
+    public BoardWriteBehind(RestHighLevelClient client) {
+        this.client = client;
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        flusher = new Thread(this::run, "board-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Stop taking writes and flush the queued ones, writes still queued after
+     * board.writebehind.shutdown.timeout.ms fail with 503 Service Unavailable
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        flusher.join(shutdownTimeoutMs);
+        List<PendingWrite> unflushed = new ArrayList<>();
+        queue.drainTo(unflushed);
+        if (!unflushed.isEmpty()) {
+            LOG.warn("Board write-behind stopped with {} writes queued", unflushed.size());
+            ElasticsearchStatusException stopped =
+                    new ElasticsearchStatusException("Board write-behind stopped", RestStatus.SERVICE_UNAVAILABLE);
+            unflushed.forEach(write -> write.result.completeExceptionally(stopped));
+        }
+    }
+
+    /**
+     * Queue a write and wait for its bulk item
+     *
+     * @param request - index, update or delete request
+     * @return response of the write
+     * @throws ElasticsearchStatusException with the item status when the write failed, with
+     *                                      429 when the queue stayed full, 504 when the result did
+     *                                      not arrive in time and 503 when the queue was stopped
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends DocWriteResponse> T write(DocWriteRequest<?> request) {
+        PendingWrite write = new PendingWrite(request);
+        try {
+            if (!running || !queue.offer(write, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                if (rejected != null) {
+                    rejected.increment();
+                }
+                throw new ElasticsearchStatusException("Board write queue is full", RestStatus.TOO_MANY_REQUESTS);
+            }
+            BulkItemResponse item = write.result.get(writeTimeoutMs, TimeUnit.MILLISECONDS);
+            if (item.isFailed()) {
+                throw new ElasticsearchStatusException(item.getFailureMessage(), item.status());
+            }
+            return (T) item.getResponse();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElasticsearchException("Interrupted while waiting for board write " + request.id(), e);
+        } catch (TimeoutException e) {
+            if (queue.remove(write)) {
+                throw new ElasticsearchStatusException("Timed out waiting for board write " + request.id()
+                        + ", the write was not applied", RestStatus.GATEWAY_TIMEOUT);
+            }
+            throw new ElasticsearchStatusException("Timed out waiting for board write " + request.id()
+                    + ", the write was sent and may still be applied", RestStatus.GATEWAY_TIMEOUT);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ElasticsearchStatusException) {
+                throw (ElasticsearchStatusException) e.getCause();
+            }
+            throw new ElasticsearchException("Bulk request failed for board write " + request.id(), e.getCause());
+        }
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    flush(collectBatch(first));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOG.error("Board write-behind flush failed", e);
+            }
+        }
+    }
+
+    private List<PendingWrite> collectBatch(PendingWrite first) throws InterruptedException {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMs);
+        while (batch.size() < batchSize) {
+            long wait = deadline - System.nanoTime();
+            PendingWrite next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        BulkRequest request = new BulkRequest();
+        batch.forEach(write -> request.add(write.request));
+        if (batchSizes != null) {
+            batchSizes.record(batch.size());
+        }
+        BulkResponse response;
+        try {
+            response = execute(request);
+        } catch (IOException | RuntimeException e) {
+            batch.forEach(write -> write.result.completeExceptionally(e));
+            return;
+        }
+        BulkItemResponse[] items = response.getItems();
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result.complete(items[i]);
+        }
+    }
+
+    BulkResponse execute(BulkRequest request) throws IOException {
+        return client.bulk(request, RequestOptions.DEFAULT);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("board.writebehind.queue", this, writeBehind -> writeBehind.queue.size())
+                .description("Board writes waiting for a bulk request")
+                .register(registry);
+        rejected = Counter.builder("board.writebehind.rejected")
+                .description("Board writes rejected by a full queue")
+                .register(registry);
+        batchSizes = DistributionSummary.builder("board.writebehind.batch")
+                .description("Board writes per bulk request")
+                .register(registry);
+    }
+
+    private static class PendingWrite {
+        private final DocWriteRequest<?> request;
+        private final CompletableFuture<BulkItemResponse> result = new CompletableFuture<>();
+
+        private PendingWrite(DocWriteRequest<?> request) {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package board.api.dao;
+
+import java.util.Map;
+
+/**
+ * Notified by the board storage after board writes were acknowledged
+ */
+public interface BoardWriteListener {
+
+    /**
+     * Board created or replaced
+     *
+     * @param id - board id
+     * @param source - board source
+     */
+    void onIndexed(String id, Map<String, Object> source);
+
+    /**
+     * Board partially updated
+     *
+     * @param id - board id
+     * @param doc - changed fields
+     */
+    void onUpdated(String id, Map<String, Object> doc);
+
+    void onDeleted(String id);
+
+    void onDeletedAll();
+}
@@ -0,0 +1,635 @@
+package board.api.dao;
+
+import board.api.elastic.BoardBulkItemResult;
+import board.api.elastic.BoardBulkOperation;
+import board.api.elastic.BoardFilter;
+import board.api.elastic.BoardFit;
+import board.api.elastic.BoardLookup;
+import board.api.elastic.BoardPageParameters;
+import board.api.elastic.BoardResponse;
+import board.api.elastic.IngestReport;
+import board.api.model.Board;
+import board.api.util.BoardUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.action.update.UpdateResponse;
+
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.*;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.query.*;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.elasticsearch.index.query.QueryBuilders.*;
+
+/**
+ * Board storage in the Elasticsearch board index, the default board.storage.
+ */
+@Component
+@PropertySource("classpath:board.properties")
+@ConditionalOnProperty(name = "board.storage", havingValue = "elasticsearch", matchIfMissing = true)
+public class ElasticsearchBoardDao implements BoardDao {
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final RestHighLevelClient client;
+    private final BoardQueries boardQueries;
+    private final BoardResponseMapper responseMapper;
+    private final BoardUtil boardUtil;
+    private final ObjectMapper objectMapper;
+    private final BoardBulkIngester bulkIngester;
+    private final ObjectProvider<BoardWriteListener> writeListeners;
+    private final ObjectProvider<FacetIndex> facetIndex;
+    private final ObjectProvider<BoardWriteBehind> writeBehind;
+    private final ObjectProvider<FitIndex> fitIndex;
+    private static final Logger LOG = LoggerFactory.getLogger(ElasticsearchBoardDao.class);
+    private static final TypeReference<Map<String, Object>> SOURCE_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+    @Value("${board.search.fields}")
+    private List<String> searchFields;
+    @Value("${board.bulk.chunk.size}")
+    private int bulkChunkSize;
+    @Value("${board.export.batch.size}")
+    private int exportBatchSize;
+    @Value("${board.export.scroll.keepalive.s}")
+    private long exportKeepAliveSeconds;
+    @Value("${board.export.threads}")
+    private int exportThreads;
+    private ExecutorService exportExecutor;
+
+    public ElasticsearchBoardDao(ElasticsearchOperations elasticsearchOperations,
+                                 RestHighLevelClient client,
+                                 BoardQueries boardQueries,
+                                 BoardResponseMapper responseMapper,
+                                 BoardUtil boardUtil,
+                                 ObjectMapper objectMapper,
+                                 BoardBulkIngester bulkIngester,
+                                 ObjectProvider<BoardWriteListener> writeListeners,
+                                 ObjectProvider<FacetIndex> facetIndex,
+                                 ObjectProvider<BoardWriteBehind> writeBehind,
+                                 ObjectProvider<FitIndex> fitIndex) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.client = client;
+        this.boardQueries = boardQueries;
+        this.responseMapper = responseMapper;
+        this.boardUtil = boardUtil;
+        this.objectMapper = objectMapper;
+        this.bulkIngester = bulkIngester;
+        this.writeListeners = writeListeners;
+        this.facetIndex = facetIndex;
+        this.writeBehind = writeBehind;
+        this.fitIndex = fitIndex;
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threads = new AtomicInteger();
+        exportExecutor = Executors.newFixedThreadPool(exportThreads, runnable -> {
+            Thread thread = new Thread(runnable, "board-export-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        exportExecutor.shutdownNow();
+    }
+
+    /**
+     * Create board with a new id, batched with other writes when write-behind is enabled
+     *
+     * @param board - board
+     * @return board id
+     */
+    @Override
+    public String createBoard(Board board) {
+        board.setId(UUID.randomUUID().toString());
+        BoardWriteBehind batch = writeBehind.getIfAvailable();
+        String id;
+        if (batch == null) {
+            id = elasticsearchOperations.index(new IndexQueryBuilder()
+                    .withId(board.getId())
+                    .withObject(board)
+                    .build());
+        } else {
+            ElasticsearchPersistentEntity<?> entity = boardQueries.getBoardEntity();
+            id = batch.write(new IndexRequest(entity.getIndexName(), entity.getIndexType(), board.getId())
+                    .source(toJson(board), XContentType.JSON)).getId();
+        }
+        Map<String, Object> source = objectMapper.convertValue(board, SOURCE_TYPE);
+        writeListeners.orderedStream().forEach(listener -> listener.onIndexed(id, source));
+        return id;
+    }
+
+    private byte[] toJson(Board board) {
+        try {
+            return objectMapper.writeValueAsBytes(board);
+        } catch (JsonProcessingException e) {
+            throw new ElasticsearchException("Failed to serialize board " + board.getId(), e);
+        }
+    }
+
+    /**
+     * Get board by id, the version of the board is its primary term and sequence number
+     *
+     * @param id - board id
+     * @return board, null when it does not exist
+     */
+    @Override
+    public Board findBoardById(String id) {
+        ElasticsearchPersistentEntity<?> entity = boardQueries.getBoardEntity();
+        GetRequest request = new GetRequest(entity.getIndexName(), entity.getIndexType(), id);
+        GetResponse response;
+        try {
+            response = client.get(request, RequestOptions.DEFAULT);
+        } catch (IOException e) {
+            throw new ElasticsearchException("Error for get request: " + request, e);
+        }
+        if (!response.isExists()) {
+            return null;
+        }
+        Board board = responseMapper.toBoard(id, response.getSourceAsString());
+        board.setVersion(response.getSeqNo() == SequenceNumbers.UNASSIGNED_SEQ_NO
+                ? Long.toString(response.getVersion())
+                : response.getPrimaryTerm() + "." + response.getSeqNo());
+        return board;
+    }
+
+    /**
+     * Get boards by ids with one multi-get request
+     *
+     * @param ids - board ids
+     * @return lookups in the order of the ids, boards that do not exist are marked as not found
+     */
+    @Override
+    public List<BoardLookup> findBoardsByIds(List<String> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        ElasticsearchPersistentEntity<?> entity = boardQueries.getBoardEntity();
+        MultiGetRequest request = new MultiGetRequest();
+        ids.forEach(id -> request.add(entity.getIndexName(), entity.getIndexType(), id));
+        MultiGetResponse response;
+        try {
+            response = client.mget(request, RequestOptions.DEFAULT);
+        } catch (IOException e) {
+            throw new ElasticsearchException("Error for multi get request: " + request, e);
+        }
+        return Arrays.stream(response.getResponses())
+                .map(this::toBoardLookup)
+                .collect(Collectors.toList());
+    }
+
+    private BoardLookup toBoardLookup(MultiGetItemResponse item) {
+        if (item.isFailed()) {
+            LOG.warn("Failed to get board {}: {}", item.getId(), item.getFailure().getMessage());
+            return new BoardLookup(item.getId(), null);
+        }
+        GetResponse getResponse = item.getResponse();
+        return new BoardLookup(item.getId(), getResponse.isExists()
+                ? responseMapper.toBoard(item.getId(), getResponse.getSourceAsString())
+                : null);
+    }
+
+    @Override
+    public UpdateResponse updateBoard(String id, HashMap<String, Object> body) {
+        BoardWriteBehind batch = writeBehind.getIfAvailable();
+        UpdateResponse response;
+        if (batch == null) {
+            UpdateQuery updateQuery = new UpdateQueryBuilder()
+                    .withId(id)
+                    .withClass(Board.class)
+                    .withUpdateRequest(new UpdateRequest().doc(body))
+                    .build();
+            response = elasticsearchOperations.update(updateQuery);
+        } else {
+            ElasticsearchPersistentEntity<?> entity = boardQueries.getBoardEntity();
+            response = batch.write(new UpdateRequest(entity.getIndexName(), entity.getIndexType(), id).doc(body));
+        }
+        writeListeners.orderedStream().forEach(listener -> listener.onUpdated(id, body));
+        return response;
+    }
+
+    @Override
+    public boolean removeBoard(String id) {
+        boolean removed = id.equals(elasticsearchOperations.delete(Board.class, id));
+        if (removed) {
+            writeListeners.orderedStream().forEach(listener -> listener.onDeleted(id));
+        }
+        return removed;
+    }
+
+    /**
+     * Apply partial updates and deletes as bulk requests of at most board.bulk.chunk.size
+     * operations. The refresh policy is only set on the last chunk, its refresh makes the
+     * earlier chunks visible as well.
+     *
+     * @param operations - updates and deletes
+     * @param refreshPolicy - refresh policy
+     * @return result per operation, in the order of the operations
+     */
+    @Override
+    public List<BoardBulkItemResult> bulkBoards(List<BoardBulkOperation> operations,
+                                                WriteRequest.RefreshPolicy refreshPolicy) {
+        ElasticsearchPersistentEntity<?> entity = boardQueries.getBoardEntity();
+        List<BoardBulkItemResult> results = new ArrayList<>(operations.size());
+        for (int from = 0; from < operations.size(); from += bulkChunkSize) {
+            int to = Math.min(from + bulkChunkSize, operations.size());
+            BulkRequest request = new BulkRequest();
+            operations.subList(from, to).forEach(operation -> request.add(getWriteRequest(entity, operation)));
+            request.setRefreshPolicy(to == operations.size() ? refreshPolicy : WriteRequest.RefreshPolicy.NONE);
+            BulkResponse response;
+            try {
+                response = client.bulk(request, RequestOptions.DEFAULT);
+            } catch (IOException e) {
+                throw new ElasticsearchException("Error for bulk request of " + request.numberOfActions() + " boards", e);
+            }
+            BulkItemResponse[] items = response.getItems();
+            for (int i = 0; i < items.length; i++) {
+                results.add(toBulkItemResult(items[i]));
+                if (!items[i].isFailed()) {
+                    notifyWritten(operations.get(from + i));
+                }
+            }
+        }
+        return results;
+    }
+
+    private void notifyWritten(BoardBulkOperation operation) {
+        writeListeners.orderedStream().forEach(listener -> {
+            if (BoardBulkOperation.DELETE.equals(operation.getAction())) {
+                listener.onDeleted(operation.getId());
+            } else {
+                listener.onUpdated(operation.getId(), operation.getDoc());
+            }
+        });
+    }
+
+    private DocWriteRequest<?> getWriteRequest(ElasticsearchPersistentEntity<?> entity, BoardBulkOperation operation) {
+        if (BoardBulkOperation.DELETE.equals(operation.getAction())) {
+            return new DeleteRequest(entity.getIndexName(), entity.getIndexType(), operation.getId());
+        }
+        return new UpdateRequest(entity.getIndexName(), entity.getIndexType(), operation.getId())
+                .doc(operation.getDoc());
+    }
+
+    private BoardBulkItemResult toBulkItemResult(BulkItemResponse item) {
+        BoardBulkItemResult result = new BoardBulkItemResult();
+        result.setId(item.getId());
+        result.setAction(item.getOpType().getLowercase());
+        result.setStatus(item.status().getStatus());
+        if (item.isFailed()) {
+            result.setError(item.getFailureMessage());
+        } else {
+            result.setResult(item.getResponse().getResult().getLowercase());
+        }
+        return result;
+    }
+
+    public Page<Board> findBoardsByYear(int year, int page, int pageSize, String sortBy, String order) {
+        FieldSortBuilder sortBuilder = SortBuilders
+                .fieldSort(sortBy)
+                .order(SortOrder.fromString(order));
+        SearchQuery query = new NativeSearchQueryBuilder()
+                .withQuery(matchQuery("year", year))
+                .withPageable(PageRequest.of(page, pageSize))
+                .withSort(sortBuilder)
+                .build();
+        return elasticsearchOperations.queryForPage(query, Board.class);
+    }
+
+    @Override
+    public boolean deleteAllBoards() {
+        DeleteQuery deleteQuery = new DeleteQuery();
+        QueryBuilder queryBuilder = QueryBuilders.matchAllQuery();
+        deleteQuery.setQuery(queryBuilder);
+        elasticsearchOperations.delete(deleteQuery, Board.class);
+        writeListeners.orderedStream().forEach(BoardWriteListener::onDeletedAll);
+        return true;
+    }
+
+    @Override
+    public List<BoardFilter> findFilters() {
+        List<BoardFilter> indexedFilters = getIndexedFilters(Collections.emptyMap());
+        if (indexedFilters != null) {
+            return indexedFilters;
+        }
+        NativeSearchQueryBuilder nativeSearchQueryBuilder = new NativeSearchQueryBuilder()
+                .withQuery(matchAllQuery());
+        boardQueries.addFilterAggregations(nativeSearchQueryBuilder, Collections.emptyMap());
+        SearchQuery searchQuery = nativeSearchQueryBuilder.build();
+        Aggregations aggregations = elasticsearchOperations.query(searchQuery, SearchResponse::getAggregations);
+        return responseMapper.getFilters(aggregations, Collections.emptyMap());
+    }
+
+    /**
+     * The k boards nearest to the query from the fit index, fetched with one multi-get. Without
+     * the fit index, board.fit.enabled=false, a search sorts every board by a distance script.
+     *
+     * @param values - weight, flex, waist width and stance width, NaN to ignore a dimension
+     * @param k - number of boards
+     * @return boards, nearest first
+     */
+    @Override
+    public List<BoardFit> findFittingBoards(double[] values, int k) {
+        FitIndex index = fitIndex.getIfAvailable();
+        if (index == null) {
+            return searchFittingBoards(values, k);
+        }
+        List<BoardFit> fits = index.getNearest(values, k);
+        if (fits == null) {
+            throw new ElasticsearchStatusException("Fit index is not available", RestStatus.SERVICE_UNAVAILABLE);
+        }
+        List<BoardLookup> lookups = findBoardsByIds(fits.stream().map(BoardFit::getId).collect(Collectors.toList()));
+        for (int i = 0; i < fits.size(); i++) {
+            fits.get(i).setValue(lookups.get(i).getValue());
+        }
+        return fits.stream()
+                .filter(fit -> fit.getValue() != null)
+                .collect(Collectors.toList());
+    }
+
+    private List<BoardFit> searchFittingBoards(double[] values, int k) {
+        SearchQuery searchQuery = new NativeSearchQueryBuilder()
+                .withQuery(matchAllQuery())
+                .withPageable(PageRequest.of(0, k))
+                .withSort(boardQueries.getFitSort(values))
+                .build();
+        return elasticsearchOperations.query(searchQuery, searchResponse -> Arrays.stream(searchResponse.getHits().getHits())
+                .filter(hit -> ((Number) hit.getSortValues()[0]).doubleValue() < Double.MAX_VALUE)
+                .map(hit -> {
+                    BoardFit fit = new BoardFit(hit.getId(), Math.sqrt(((Number) hit.getSortValues()[0]).doubleValue()));
+                    fit.setValue(responseMapper.toBoard(hit));
+                    return fit;
+                })
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public boolean addRandomBoards(int num) {
+        IngestReport report = importBoards(Stream.generate(boardUtil::getRandomBoard)
+                .limit(num)
+                .iterator());
+        return report.isComplete() && report.getFailed() == 0;
+    }
+
+    @Override
+    public IngestReport importBoards(Iterator<Board> boards) {
+        return bulkIngester.ingest(boards);
+    }
+
+    @Override
+    public BoardResponse findBoards(BoardPageParameters pageParameters, Map<String, String> searchFilters) {
+        List<BoardFilter> indexedFilters = getIndexedFilters(searchFilters);
+        BoardResponse response;
+        if (pageParameters.getCursor() != null) {
+            boolean aggregated = indexedFilters == null && pageParameters.getCursor().isFirstPage();
+            SearchResponse searchResponse = search(
+                    boardQueries.getSearchSource(pageParameters, searchFilters, indexedFilters == null));
+            response = responseMapper.creatBoardResponse(searchResponse, pageParameters,
+                    aggregated ? searchFilters : null);
+            if (indexedFilters != null && pageParameters.getCursor().isFirstPage()) {
+                response.setFilters(indexedFilters);
+            }
+            return response;
+        }
+        NativeSearchQueryBuilder nativeSearchQueryBuilder = new NativeSearchQueryBuilder()
+                .withPageable(boardQueries.getPageable(pageParameters))
+                .withSort(boardQueries.getSort(pageParameters))
+                .withSourceFilter(boardQueries.getSourceFilter(pageParameters));
+        if (indexedFilters == null) {
+            nativeSearchQueryBuilder
+                    .withQuery(boardQueries.getQueryForRanges(searchFilters))
+                    .withFilter(boardQueries.getPostFilter(searchFilters));
+            boardQueries.addFilterAggregations(nativeSearchQueryBuilder, searchFilters);
+        } else {
+            nativeSearchQueryBuilder.withQuery(boardQueries.getQueryForFilters(searchFilters));
+        }
+        SearchQuery searchQuery = nativeSearchQueryBuilder.build();
+        response = elasticsearchOperations.query(searchQuery, searchResponse ->
+                responseMapper.creatBoardResponse(searchResponse, pageParameters,
+                        indexedFilters == null ? searchFilters : null));
+        if (indexedFilters != null) {
+            response.setFilters(indexedFilters);
+        }
+        return response;
+    }
+
+    /**
+     * Filter counts from the facet index
+     *
+     * @param searchFilters - selected filters
+     * @return filters, null when they have to be aggregated by Elasticsearch
+     */
+    private List<BoardFilter> getIndexedFilters(Map<String, String> searchFilters) {
+        FacetIndex index = facetIndex.getIfAvailable();
+        return index == null ? null : index.getFilters(searchFilters);
+    }
+
+    private BoardResponse creatBoardResponse(Page<Board> responsePage) {
+        BoardResponse response = new BoardResponse();
+        response.setValues(responsePage.getContent());
+        response.setPage(responsePage.getNumber());
+        response.setPageSize(responsePage.getSize());
+        response.setTotal(responsePage.getTotalElements());
+        response.setTotalPages(responsePage.getTotalPages());
+        return response;
+    }
+
+    public BoardResponse searchBoards1(BoardPageParameters pageParameters) {
+        BoolQueryBuilder boolQueryBuilder = QueryBuilders.boolQuery();
+        searchFields.forEach(field -> boolQueryBuilder.should(QueryBuilders.termsQuery(field, "Beginner")));
+        NativeSearchQueryBuilder nativeSearchQueryBuilder = new NativeSearchQueryBuilder()
+                .withQuery(boolQueryBuilder)
+                .withPageable(boardQueries.getPageable(pageParameters))
+                .withSort(boardQueries.getSort(pageParameters));
+        SearchQuery searchQuery = nativeSearchQueryBuilder.build();
+        Page<Board> responsePage = elasticsearchOperations
+                .queryForPage(searchQuery, Board.class);
+        return creatBoardResponse(responsePage);
+    }
+
+    @Override
+    public BoardResponse searchBoards(BoardPageParameters pageParameters, String q) {
+        if (pageParameters.getCursor() != null) {
+            SearchResponse searchResponse = search(
+                    boardQueries.getSearchSource(boardQueries.getQueryForSearchKey(q), pageParameters));
+            return responseMapper.creatBoardResponse(searchResponse, pageParameters, null);
+        }
+        NativeSearchQueryBuilder nativeSearchQueryBuilder = new NativeSearchQueryBuilder()
+                .withQuery(boardQueries.getQueryForSearchKey(q))
+                .withPageable(boardQueries.getPageable(pageParameters))
+                .withSort(boardQueries.getSort(pageParameters))
+                .withSourceFilter(boardQueries.getSourceFilter(pageParameters));
+        SearchQuery searchQuery = nativeSearchQueryBuilder.build();
+        return elasticsearchOperations.query(searchQuery, searchResponse ->
+                responseMapper.creatBoardResponse(searchResponse, pageParameters, null));
+    }
+
+    private SearchResponse search(SearchSourceBuilder source) {
+        SearchRequest request = boardQueries.getSearchRequest(source);
+        try {
+            return client.search(request, RequestOptions.DEFAULT);
+        } catch (IOException e) {
+            throw new ElasticsearchException("Error for search request: " + request, e);
+        }
+    }
+
+    /**
+     * Write every board matching the filters to the output stream as NDJSON. Each slice is a
+     * scroll over the index in _doc order, batches are written as they arrive so memory use
+     * does not depend on the index size. Slices of all exports share board.export.threads
+     * threads, so concurrent exports queue for them.
+     *
+     * @param searchFilters - selected filters
+     * @param slices - number of scroll slices read in parallel
+     * @param out - output stream
+     */
+    @Override
+    public void exportBoards(Map<String, String> searchFilters, int slices, OutputStream out) {
+        QueryBuilder query = boardQueries.getQueryForFilters(searchFilters);
+        if (slices == 1) {
+            exportSlice(query, null, out);
+            return;
+        }
+        List<Future<?>> futures = IntStream.range(0, slices)
+                .mapToObj(id -> exportExecutor.submit(() -> exportSlice(query, new SliceBuilder(id, slices), out)))
+                .collect(Collectors.toList());
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElasticsearchException("Board export interrupted", e);
+        } catch (ExecutionException e) {
+            throw new ElasticsearchException("Board export failed", e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private void exportSlice(QueryBuilder query, SliceBuilder slice, OutputStream out) {
+        TimeValue keepAlive = TimeValue.timeValueSeconds(exportKeepAliveSeconds);
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(query)
+                .size(exportBatchSize)
+                .sort(SortBuilders.fieldSort(FieldSortBuilder.DOC_FIELD_NAME));
+        if (slice != null) {
+            source.slice(slice);
+        }
+        String scrollId = null;
+        try {
+            SearchResponse response = client.search(
+                    boardQueries.getSearchRequest(source).scroll(keepAlive), RequestOptions.DEFAULT);
+            scrollId = response.getScrollId();
+            while (response.getHits().getHits().length > 0) {
+                writeHits(response.getHits().getHits(), out);
+                response = client.scroll(new SearchScrollRequest(scrollId).scroll(keepAlive), RequestOptions.DEFAULT);
+                scrollId = response.getScrollId();
+            }
+        } catch (IOException e) {
+            throw new ElasticsearchException("Board export failed", e);
+        } finally {
+            clearScroll(scrollId);
+        }
+    }
+
+    private void writeHits(SearchHit[] hits, OutputStream out) throws IOException {
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        for (SearchHit hit : hits) {
+            BytesReference sourceRef = hit.getSourceRef();
+            if (containsNewLine(sourceRef)) {
+                objectMapper.writeValue(batch, objectMapper.readTree(hit.getSourceAsString()));
+            } else {
+                sourceRef.writeTo(batch);
+            }
+            batch.write('\n');
+        }
+        synchronized (out) {
+            batch.writeTo(out);
+            out.flush();
+        }
+    }
+
+    private boolean containsNewLine(BytesReference bytes) {
+        for (int i = 0; i < bytes.length(); i++) {
+            if (bytes.get(i) == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void clearScroll(String scrollId) {
+        if (scrollId == null) {
+            return;
+        }
+        ClearScrollRequest request = new ClearScrollRequest();
+        request.addScrollId(scrollId);
+        try {
+            client.clearScroll(request, RequestOptions.DEFAULT);
+        } catch (IOException e) {
+            LOG.warn("Failed to clear scroll {}", scrollId, e);
+        }
+    }
+}
@@ -0,0 +1,517 @@
+package board.api.dao;
+
+import board.api.elastic.BoardFilter;
+import board.api.elastic.BoardSearchFilters;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Filter counts kept in memory, so listings do not run terms aggregations. The index holds the
+ * filter values of every board and counts per filter value for all boards and for the most
+ * recently used filter combinations. The values of a filter are counted over the boards matching
+ * the other filters of a combination, like the disjunctive aggregations. Board writes are applied
+ * as deltas, a periodic full scan of the board index replaces the values and corrects any drift.
+ * Until the first scan completes, and for range filters, counts are not available and the
+ * storage falls back to aggregations. Only the writes of this instance are applied, the writes of
+ * other instances show up with the next scan, so the index is off by default.
+ */
+@Component
+@PropertySource("classpath:board.properties")
+@ConditionalOnExpression("${board.facets.enabled:false} and '${board.storage:elasticsearch}' == 'elasticsearch'")
+public class FacetIndex implements BoardWriteListener, MeterBinder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FacetIndex.class);
+    private static final int FILTER_SIZE = 100;
+
+    private final RestHighLevelClient client;
+    private final BoardQueries boardQueries;
+    private final ScheduledExecutorService reconcileExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "facet-index-reconcile");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private FilterValues values = new FilterValues(new HashMap<>());
+    private Map<String, Map<String, Long>> counts;
+    private final Map<Map<String, String>, Combination> combinations =
+            new LinkedHashMap<Map<String, String>, Combination>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Map<String, String>, Combination> eldest) {
+                    return size() > maxCombinations;
+                }
+            };
+    private List<Consumer<FilterValues>> pendingWrites;
+    private final List<Build> builds = new ArrayList<>();
+    private long generation;
+    private boolean compacting;
+    private volatile long drift;
+    @Value("${board.search.filters}")
+    private List<String> filterNames;
+    @Value("${board.facets.combinations.max}")
+    private int maxCombinations;
+    @Value("${board.facets.reconcile.interval.ms}")
+    private long reconcileIntervalMs;
+    @Value("${board.facets.compact.threshold}")
+    private int compactThreshold;
+    @Value("${board.export.batch.size}")
+    private int scanBatchSize;
+    @Value("${board.export.scroll.keepalive.s}")
+    private long scanKeepAliveSeconds;
+
+    public FacetIndex(RestHighLevelClient client, BoardQueries boardQueries) {
+        this.client = client;
+        this.boardQueries = boardQueries;
+    }
+
+    @PostConstruct
+    public void start() {
+        reconcileExecutor.scheduleWithFixedDelay(this::reconcile, 0, reconcileIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reconcileExecutor.shutdownNow();
+    }
+
+    /**
+     * Filter counts of the boards matching the selected filters. A combination that is not
+     * indexed yet is counted over a snapshot of the filter values outside the lock, the writes
+     * made meanwhile are applied to it before it is added.
+     *
+     * @param searchFilters - selected filters
+     * @return filters, null until the first reconciliation completed or when a range is selected
+     */
+    public List<BoardFilter> getFilters(Map<String, String> searchFilters) {
+        Build build;
+        synchronized (this) {
+            if (counts == null || searchFilters.keySet().stream().anyMatch(BoardSearchFilters::isRange)) {
+                return null;
+            }
+            Combination combination = searchFilters.isEmpty() ? null : combinations.get(searchFilters);
+            if (searchFilters.isEmpty() || combination != null) {
+                return getFilters(searchFilters.isEmpty() ? counts : combination.counts, searchFilters);
+            }
+            build = new Build(new Combination(getSelected(searchFilters)), values.snapshot(), generation);
+            builds.add(build);
+        }
+        try {
+            count(build.snapshot, build.combination);
+        } finally {
+            synchronized (this) {
+                builds.remove(build);
+            }
+        }
+        synchronized (this) {
+            build.writes.forEach(write -> write.accept(build.combination));
+            if (build.generation == generation) {
+                combinations.put(new HashMap<>(searchFilters), build.combination);
+            }
+            return getFilters(build.combination.counts, searchFilters);
+        }
+    }
+
+    private List<BoardFilter> getFilters(Map<String, Map<String, Long>> filterCounts, Map<String, String> searchFilters) {
+        return filterNames.stream()
+                .map(name -> new BoardFilter(name, getTop(filterCounts.get(name)), searchFilters.getOrDefault(name, "")))
+                .collect(Collectors.toList());
+    }
+
+    private List<Set<String>> getSelected(Map<String, String> searchFilters) {
+        List<Set<String>> selected = new ArrayList<>(Collections.nCopies(filterNames.size(), null));
+        searchFilters.forEach((name, value) -> {
+            int i = filterNames.indexOf(name);
+            if (i >= 0) {
+                selected.set(i, new HashSet<>(BoardSearchFilters.getValues(value)));
+            }
+        });
+        return selected;
+    }
+
+    @Override
+    public void onIndexed(String id, Map<String, Object> source) {
+        String[] next = toValues(source, new String[filterNames.size()]);
+        write(target -> set(target, id, next));
+    }
+
+    @Override
+    public void onUpdated(String id, Map<String, Object> doc) {
+        write(target -> {
+            String[] current = target.get(id);
+            if (current != null) {
+                set(target, id, toValues(doc, current.clone()));
+            }
+        });
+    }
+
+    @Override
+    public void onDeleted(String id) {
+        write(target -> set(target, id, null));
+    }
+
+    @Override
+    public void onDeletedAll() {
+        write(target -> {
+            target.clear();
+            if (target == values && counts != null) {
+                counts = new HashMap<>();
+                combinations.clear();
+                generation++;
+            }
+        });
+    }
+
+    /**
+     * Replace the filter values with a scan of the board index. Writes are sent without a refresh,
+     * so the index is refreshed after the pending writes are armed: a write acknowledged before
+     * is visible to the scan, a later one is applied again on top of it, they are idempotent per
+     * board.
+     */
+    void reconcile() {
+        synchronized (this) {
+            pendingWrites = new ArrayList<>();
+        }
+        FilterValues scanned;
+        try {
+            refresh();
+            scanned = new FilterValues(scan());
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Facet index reconciliation failed", e);
+            synchronized (this) {
+                pendingWrites = null;
+            }
+            return;
+        }
+        synchronized (this) {
+            pendingWrites.forEach(write -> write.accept(scanned));
+            pendingWrites = null;
+            Combination reconciled = new Combination(getSelected(Collections.emptyMap()));
+            count(scanned, reconciled);
+            drift = counts == null ? 0 : getDrift(counts, reconciled.counts);
+            if (drift > 0) {
+                LOG.info("Facet index drifted by {} counts, reconciled {} boards", drift, scanned.size());
+            }
+            values = scanned;
+            counts = reconciled.counts;
+            combinations.clear();
+            generation++;
+        }
+    }
+
+    void refresh() throws IOException {
+        client.indices().refresh(new RefreshRequest(boardQueries.getBoardEntity().getIndexName()), RequestOptions.DEFAULT);
+    }
+
+    Map<String, String[]> scan() throws IOException {
+        TimeValue keepAlive = TimeValue.timeValueSeconds(scanKeepAliveSeconds);
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(QueryBuilders.matchAllQuery())
+                .size(scanBatchSize)
+                .sort(SortBuilders.fieldSort(FieldSortBuilder.DOC_FIELD_NAME))
+                .fetchSource(filterNames.toArray(new String[0]), null);
+        Map<String, String[]> scanned = new HashMap<>();
+        String scrollId = null;
+        try {
+            SearchResponse response = client.search(
+                    boardQueries.getSearchRequest(source).scroll(keepAlive), RequestOptions.DEFAULT);
+            scrollId = response.getScrollId();
+            while (response.getHits().getHits().length > 0) {
+                for (SearchHit hit : response.getHits().getHits()) {
+                    scanned.put(hit.getId(), toValues(hit.getSourceAsMap(), new String[filterNames.size()]));
+                }
+                response = client.scroll(new SearchScrollRequest(scrollId).scroll(keepAlive), RequestOptions.DEFAULT);
+                scrollId = response.getScrollId();
+            }
+        } finally {
+            if (scrollId != null) {
+                ClearScrollRequest request = new ClearScrollRequest();
+                request.addScrollId(scrollId);
+                client.clearScroll(request, RequestOptions.DEFAULT);
+            }
+        }
+        return scanned;
+    }
+
+    private synchronized void write(Consumer<FilterValues> write) {
+        write.accept(values);
+        if (pendingWrites != null) {
+            pendingWrites.add(write);
+        }
+        if (!compacting && values.changes.size() > compactThreshold) {
+            compacting = true;
+            reconcileExecutor.execute(this::compact);
+        }
+    }
+
+    /**
+     * Merge the changes into a new base outside the lock, the changes made meanwhile stay
+     */
+    void compact() {
+        FilterValues compacted;
+        synchronized (this) {
+            compacted = values.snapshot();
+        }
+        Map<String, String[]> base = compacted.merge();
+        synchronized (this) {
+            compacting = false;
+            values.rebase(compacted, base);
+        }
+    }
+
+    /**
+     * Set the filter values of a board, the counts follow when the live values are changed
+     */
+    private void set(FilterValues target, String id, String[] next) {
+        String[] previous = target.put(id, next);
+        if (target != values || counts == null) {
+            return;
+        }
+        if (previous != null) {
+            add(counts, previous, -1);
+            combinations.values().forEach(combination -> add(combination, previous, -1));
+            builds.forEach(build -> build.writes.add(combination -> add(combination, previous, -1)));
+        }
+        if (next != null) {
+            add(counts, next, 1);
+            combinations.values().forEach(combination -> add(combination, next, 1));
+            builds.forEach(build -> build.writes.add(combination -> add(combination, next, 1)));
+        }
+    }
+
+    private void count(FilterValues boards, Combination combination) {
+        boards.forEach(board -> add(combination, board, 1));
+    }
+
+    /**
+     * Count the values of a board for every filter whose other selected filters the board matches
+     */
+    private void add(Combination combination, String[] board, long delta) {
+        for (int i = 0; i < board.length; i++) {
+            if (matches(board, combination.selected, i)) {
+                add(combination.counts, board, i, delta);
+            }
+        }
+    }
+
+    private void add(Map<String, Map<String, Long>> filterCounts, String[] board, long delta) {
+        for (int i = 0; i < board.length; i++) {
+            add(filterCounts, board, i, delta);
+        }
+    }
+
+    private void add(Map<String, Map<String, Long>> filterCounts, String[] board, int i, long delta) {
+        if (board[i] == null) {
+            return;
+        }
+        Map<String, Long> valueCounts = filterCounts.computeIfAbsent(filterNames.get(i), name -> new HashMap<>());
+        long count = valueCounts.getOrDefault(board[i], 0L) + delta;
+        if (count > 0) {
+            valueCounts.put(board[i], count);
+        } else {
+            valueCounts.remove(board[i]);
+        }
+    }
+
+    private boolean matches(String[] board, List<Set<String>> selected, int excluded) {
+        for (int i = 0; i < selected.size(); i++) {
+            Set<String> values = selected.get(i);
+            if (i != excluded && values != null && !values.contains(board[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String[] toValues(Map<String, Object> source, String[] board) {
+        for (int i = 0; i < board.length; i++) {
+            String name = filterNames.get(i);
+            if (source.containsKey(name)) {
+                Object value = source.get(name);
+                board[i] = value == null ? null : value.toString().intern();
+            }
+        }
+        return board;
+    }
+
+    private Map<String, Long> getTop(Map<String, Long> valueCounts) {
+        if (valueCounts == null) {
+            return new LinkedHashMap<>();
+        }
+        return valueCounts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(FILTER_SIZE)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private long getDrift(Map<String, Map<String, Long>> before, Map<String, Map<String, Long>> after) {
+        long difference = 0;
+        for (String name : filterNames) {
+            Map<String, Long> left = before.getOrDefault(name, Collections.emptyMap());
+            Map<String, Long> right = after.getOrDefault(name, Collections.emptyMap());
+            for (String value : left.keySet()) {
+                difference += Math.abs(left.get(value) - right.getOrDefault(value, 0L));
+            }
+            for (String value : right.keySet()) {
+                if (!left.containsKey(value)) {
+                    difference += right.get(value);
+                }
+            }
+        }
+        return difference;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("board.facets.boards", this, index -> index.size())
+                .description("Boards in the facet index")
+                .register(registry);
+        Gauge.builder("board.facets.drift", this, index -> index.drift)
+                .description("Counts corrected by the last reconciliation")
+                .register(registry);
+    }
+
+    private synchronized int size() {
+        return values.size();
+    }
+
+    private static class Combination {
+        private final List<Set<String>> selected;
+        private final Map<String, Map<String, Long>> counts = new HashMap<>();
+
+        private Combination(List<Set<String>> selected) {
+            this.selected = selected;
+        }
+    }
+
+    /**
+     * Filter values per board id, a base that is never changed and the changes made since, a null
+     * value for a deleted board. A snapshot shares the base and copies the changes only.
+     */
+    private static class FilterValues {
+        private Map<String, String[]> base;
+        private Map<String, String[]> changes;
+        private int size;
+
+        private FilterValues(Map<String, String[]> base) {
+            this(base, new HashMap<>(), base.size());
+        }
+
+        private FilterValues(Map<String, String[]> base, Map<String, String[]> changes, int size) {
+            this.base = base;
+            this.changes = changes;
+            this.size = size;
+        }
+
+        private String[] get(String id) {
+            return changes.containsKey(id) ? changes.get(id) : base.get(id);
+        }
+
+        private String[] put(String id, String[] board) {
+            String[] previous = get(id);
+            if (previous != null || board != null) {
+                changes.put(id, board);
+                size += (board == null ? 0 : 1) - (previous == null ? 0 : 1);
+            }
+            return previous;
+        }
+
+        private void clear() {
+            base = new HashMap<>();
+            changes = new HashMap<>();
+            size = 0;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private void forEach(Consumer<String[]> action) {
+            base.forEach((id, board) -> {
+                if (!changes.containsKey(id)) {
+                    action.accept(board);
+                }
+            });
+            changes.values().forEach(board -> {
+                if (board != null) {
+                    action.accept(board);
+                }
+            });
+        }
+
+        private FilterValues snapshot() {
+            return new FilterValues(base, new HashMap<>(changes), size);
+        }
+
+        private Map<String, String[]> merge() {
+            Map<String, String[]> merged = new HashMap<>(base);
+            changes.forEach((id, board) -> {
+                if (board == null) {
+                    merged.remove(id);
+                } else {
+                    merged.put(id, board);
+                }
+            });
+            return merged;
+        }
+
+        /**
+         * Replace the base of a snapshot with its merge, unless the values were cleared since
+         */
+        private void rebase(FilterValues compacted, Map<String, String[]> merged) {
+            if (base == compacted.base) {
+                base = merged;
+                compacted.changes.forEach(changes::remove);
+            }
+        }
+    }
+
+    /**
+     * Combination counted outside the lock, with the writes made since its snapshot was taken
+     */
+    private static class Build {
+        private final Combination combination;
+        private final FilterValues snapshot;
+        private final long generation;
+        private final List<Consumer<Combination>> writes = new ArrayList<>();
+
+        private Build(Combination combination, FilterValues snapshot, long generation) {
+            this.combination = combination;
+            this.snapshot = snapshot;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package board.api.dao;
+
+import board.api.elastic.BoardFit;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Nearest neighbour index over the fit dimensions of the boards, see {@link FitTree}. Searches
+ * read an immutable snapshot: the tree and the boards written since it was built, which are
+ * compared one by one. The tree is rebuilt in the background when board.fit.rebuild.threshold
+ * boards were written, a periodic full scan of the board index replaces it and corrects any drift.
+ * Only the writes of this instance are applied until that scan, so the index is off by default.
+ */
+@Component
+@PropertySource("classpath:board.properties")
+@ConditionalOnExpression("${board.fit.enabled:false} and '${board.storage:elasticsearch}' == 'elasticsearch'")
+public class FitIndex implements BoardWriteListener, MeterBinder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FitIndex.class);
+
+    private final RestHighLevelClient client;
+    private final BoardQueries boardQueries;
+    private final ScheduledExecutorService reconcileExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fit-index-reconcile");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Map<String, double[]> fields = new HashMap<>();
+    private volatile Snapshot snapshot;
+    private List<Consumer<Map<String, double[]>>> pendingWrites;
+    private boolean rebuilding;
+    @Value("${board.fit.scales}")
+    private double[] scales;
+    @Value("${board.fit.rebuild.threshold}")
+    private int rebuildThreshold;
+    @Value("${board.fit.reconcile.interval.ms}")
+    private long reconcileIntervalMs;
+    @Value("${board.export.batch.size}")
+    private int scanBatchSize;
+    @Value("${board.export.scroll.keepalive.s}")
+    private long scanKeepAliveSeconds;
+
+    public FitIndex(RestHighLevelClient client, BoardQueries boardQueries) {
+        this.client = client;
+        this.boardQueries = boardQueries;
+    }
+
+    @PostConstruct
+    public void start() {
+        reconcileExecutor.scheduleWithFixedDelay(this::reconcile, 0, reconcileIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reconcileExecutor.shutdownNow();
+    }
+
+    /**
+     * The k boards nearest to the query
+     *
+     * @param values - weight, flex, waist width and stance width, NaN to ignore a dimension
+     * @param k - number of boards
+     * @return boards without values, nearest first, null until the first reconciliation completed
+     */
+    public List<BoardFit> getNearest(double[] values, int k) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+        double[] query = FitTree.toQuery(values, scales);
+        FitTree.Neighbours neighbours = new FitTree.Neighbours(k);
+        current.tree.nearest(query, current.changes.keySet(), neighbours);
+        current.changes.forEach((id, point) -> {
+            if (point != null) {
+                neighbours.offer(id, FitTree.distance(query, point, 0));
+            }
+        });
+        return neighbours.toFits();
+    }
+
+    @Override
+    public void onIndexed(String id, Map<String, Object> source) {
+        double[] next = FitTree.getFields(source, FitTree.newFields());
+        write(target -> set(target, id, next));
+    }
+
+    @Override
+    public void onUpdated(String id, Map<String, Object> doc) {
+        write(target -> {
+            double[] current = target.get(id);
+            if (current != null) {
+                set(target, id, FitTree.getFields(doc, current.clone()));
+            }
+        });
+    }
+
+    @Override
+    public void onDeleted(String id) {
+        write(target -> set(target, id, null));
+    }
+
+    @Override
+    public void onDeletedAll() {
+        write(target -> {
+            target.clear();
+            if (target == fields && snapshot != null) {
+                snapshot = new Snapshot(new FitTree(Collections.emptyMap()), Collections.emptyMap());
+            }
+        });
+    }
+
+    /**
+     * Replace the tree with a scan of the board index. The index is refreshed after the pending
+     * writes are armed, so a write acknowledged before is visible to the scan, a later one is
+     * applied again on top of it, they are idempotent per board.
+     */
+    void reconcile() {
+        synchronized (this) {
+            pendingWrites = new ArrayList<>();
+        }
+        Map<String, double[]> scanned;
+        FitTree tree;
+        try {
+            refresh();
+            scanned = scan();
+            tree = new FitTree(toPoints(scanned));
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Fit index reconciliation failed", e);
+            synchronized (this) {
+                pendingWrites = null;
+            }
+            return;
+        }
+        synchronized (this) {
+            fields = scanned;
+            snapshot = new Snapshot(tree, Collections.emptyMap());
+            pendingWrites.forEach(write -> write.accept(scanned));
+            pendingWrites = null;
+        }
+    }
+
+    /**
+     * Build a tree of the current snapshot outside the lock, searches go on with the previous
+     * tree and its changes until the new one is swapped in with the changes made meanwhile
+     */
+    void rebuild() {
+        Snapshot built = snapshot;
+        FitTree tree = null;
+        try {
+            Map<String, double[]> points = built.tree.getPoints();
+            built.changes.forEach((id, point) -> {
+                if (point == null) {
+                    points.remove(id);
+                } else {
+                    points.put(id, point);
+                }
+            });
+            tree = new FitTree(points);
+        } catch (RuntimeException e) {
+            LOG.warn("Fit tree rebuild failed", e);
+        }
+        synchronized (this) {
+            rebuilding = false;
+            Snapshot current = snapshot;
+            if (tree != null && current.tree == built.tree) {
+                Map<String, double[]> changes = new HashMap<>(current.changes);
+                built.changes.forEach(changes::remove);
+                snapshot = new Snapshot(tree, changes);
+            }
+        }
+    }
+
+    void refresh() throws IOException {
+        client.indices().refresh(new RefreshRequest(boardQueries.getBoardEntity().getIndexName()), RequestOptions.DEFAULT);
+    }
+
+    Map<String, double[]> scan() throws IOException {
+        TimeValue keepAlive = TimeValue.timeValueSeconds(scanKeepAliveSeconds);
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(QueryBuilders.matchAllQuery())
+                .size(scanBatchSize)
+                .sort(SortBuilders.fieldSort(FieldSortBuilder.DOC_FIELD_NAME))
+                .fetchSource("spec.*", null);
+        Map<String, double[]> scanned = new HashMap<>();
+        String scrollId = null;
+        try {
+            SearchResponse response = client.search(
+                    boardQueries.getSearchRequest(source).scroll(keepAlive), RequestOptions.DEFAULT);
+            scrollId = response.getScrollId();
+            while (response.getHits().getHits().length > 0) {
+                for (SearchHit hit : response.getHits().getHits()) {
+                    scanned.put(hit.getId(), FitTree.getFields(hit.getSourceAsMap(), FitTree.newFields()));
+                }
+                response = client.scroll(new SearchScrollRequest(scrollId).scroll(keepAlive), RequestOptions.DEFAULT);
+                scrollId = response.getScrollId();
+            }
+        } finally {
+            if (scrollId != null) {
+                ClearScrollRequest request = new ClearScrollRequest();
+                request.addScrollId(scrollId);
+                client.clearScroll(request, RequestOptions.DEFAULT);
+            }
+        }
+        return scanned;
+    }
+
+    private synchronized void write(Consumer<Map<String, double[]>> write) {
+        write.accept(fields);
+        if (pendingWrites != null) {
+            pendingWrites.add(write);
+        }
+    }
+
+    /**
+     * Set the fit fields of a board, the snapshot follows when the live fields are changed
+     */
+    private void set(Map<String, double[]> target, String id, double[] next) {
+        if (next == null) {
+            target.remove(id);
+        } else {
+            target.put(id, next);
+        }
+        Snapshot current = snapshot;
+        if (target != fields || current == null) {
+            return;
+        }
+        Map<String, double[]> changes = new HashMap<>(current.changes);
+        changes.put(id, next == null ? null : FitTree.toPoint(next, scales));
+        snapshot = new Snapshot(current.tree, changes);
+        if (changes.size() >= rebuildThreshold && !rebuilding) {
+            rebuilding = true;
+            reconcileExecutor.execute(this::rebuild);
+        }
+    }
+
+    private Map<String, double[]> toPoints(Map<String, double[]> boards) {
+        Map<String, double[]> points = new HashMap<>();
+        boards.forEach((id, board) -> {
+            double[] point = FitTree.toPoint(board, scales);
+            if (point != null) {
+                points.put(id, point);
+            }
+        });
+        return points;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("board.fit.boards", this, index -> index.snapshot == null ? 0 : index.snapshot.tree.size())
+                .description("Boards in the fit tree")
+                .register(registry);
+        Gauge.builder("board.fit.changes", this, index -> index.snapshot == null ? 0 : index.snapshot.changes.size())
+                .description("Boards written since the fit tree was built")
+                .register(registry);
+    }
+
+    private static class Snapshot {
+        private final FitTree tree;
+        private final Map<String, double[]> changes;
+
+        private Snapshot(FitTree tree, Map<String, double[]> changes) {
+            this.tree = tree;
+            this.changes = changes;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package board.api.dao;
+
+import board.api.elastic.BoardFit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable KD-tree over the fit dimensions of boards: rider weight, flex, waist width and
+ * stance width, the middle of the stance range. Points are divided by the scale of their
+ * dimension, so one scale unit of difference weighs the same in every dimension. The tree is
+ * implicit: the median of every range of the arrays is the node, the halves are its subtrees.
+ */
+final class FitTree {
+
+    static final int WEIGHT = 0;
+    static final int FLEX = 1;
+    static final int WAIST = 2;
+    static final int STANCE = 3;
+    static final int DIMENSIONS = 4;
+    /**
+     * Source fields of the dimensions, the stance width comes from the last two
+     */
+    static final String[][] FIELDS = {
+            {"spec", "weightRange"}, {"spec", "flex"}, {"spec", "waistWidth"},
+            {"spec", "stance", "min"}, {"spec", "stance", "max"}
+    };
+
+    private final String[] ids;
+    private final double[] points;
+    private final byte[] axes;
+
+    /**
+     * @param points - scaled points by board id
+     */
+    FitTree(Map<String, double[]> points) {
+        this.ids = new String[points.size()];
+        this.points = new double[points.size() * DIMENSIONS];
+        this.axes = new byte[points.size()];
+        int i = 0;
+        for (Map.Entry<String, double[]> entry : points.entrySet()) {
+            ids[i] = entry.getKey();
+            System.arraycopy(entry.getValue(), 0, this.points, i * DIMENSIONS, DIMENSIONS);
+            i++;
+        }
+        build(0, ids.length);
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return scaled points by board id, a copy
+     */
+    Map<String, double[]> getPoints() {
+        Map<String, double[]> copy = new HashMap<>(ids.length * 2);
+        for (int i = 0; i < ids.length; i++) {
+            copy.put(ids[i], Arrays.copyOfRange(points, i * DIMENSIONS, (i + 1) * DIMENSIONS));
+        }
+        return copy;
+    }
+
+    /**
+     * Fit fields of a board source, fields missing in the source keep their value
+     *
+     * @param source - board source or partial update
+     * @param fields - current fields, NaN when unknown
+     * @return fields
+     */
+    static double[] getFields(Map<String, Object> source, double[] fields) {
+        for (int i = 0; i < FIELDS.length; i++) {
+            Object value = source;
+            for (String name : FIELDS[i]) {
+                value = value instanceof Map ? ((Map<?, ?>) value).get(name) : null;
+            }
+            if (value instanceof Number) {
+                fields[i] = ((Number) value).doubleValue();
+            }
+        }
+        return fields;
+    }
+
+    static double[] newFields() {
+        double[] fields = new double[FIELDS.length];
+        Arrays.fill(fields, Double.NaN);
+        return fields;
+    }
+
+    /**
+     * Scaled point of the fit fields of a board
+     *
+     * @param fields - fit fields
+     * @param scales - scale per dimension
+     * @return point, null when a field is unknown
+     */
+    static double[] toPoint(double[] fields, double[] scales) {
+        for (double field : fields) {
+            if (Double.isNaN(field)) {
+                return null;
+            }
+        }
+        double[] point = new double[DIMENSIONS];
+        point[WEIGHT] = fields[0] / scales[WEIGHT];
+        point[FLEX] = fields[1] / scales[FLEX];
+        point[WAIST] = fields[2] / scales[WAIST];
+        point[STANCE] = (fields[3] + fields[4]) / 2 / scales[STANCE];
+        return point;
+    }
+
+    /**
+     * Scaled query, dimensions that are NaN are ignored by the distance
+     */
+    static double[] toQuery(double[] values, double[] scales) {
+        double[] query = new double[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            query[i] = values[i] / scales[i];
+        }
+        return query;
+    }
+
+    static double distance(double[] query, double[] points, int offset) {
+        double sum = 0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            if (!Double.isNaN(query[i])) {
+                double difference = query[i] - points[offset + i];
+                sum += difference * difference;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Offer the boards of the tree to the nearest neighbours
+     *
+     * @param query - scaled query
+     * @param skipped - ids that are not offered
+     * @param neighbours - nearest neighbours found so far
+     */
+    void nearest(double[] query, Set<String> skipped, Neighbours neighbours) {
+        nearest(query, skipped, neighbours, 0, ids.length);
+    }
+
+    private void nearest(double[] query, Set<String> skipped, Neighbours neighbours, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int node = (from + to) >>> 1;
+        if (!skipped.contains(ids[node])) {
+            neighbours.offer(ids[node], distance(query, points, node * DIMENSIONS));
+        }
+        if (to - from == 1) {
+            return;
+        }
+        int axis = axes[node];
+        double difference = Double.isNaN(query[axis]) ? 0 : query[axis] - points[node * DIMENSIONS + axis];
+        boolean left = difference < 0;
+        nearest(query, skipped, neighbours, left ? from : node + 1, left ? node : to);
+        if (difference * difference < neighbours.bound()) {
+            nearest(query, skipped, neighbours, left ? node + 1 : from, left ? to : node);
+        }
+    }
+
+    private void build(int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int axis = getWidestAxis(from, to);
+        int node = (from + to) >>> 1;
+        select(from, to - 1, node, axis);
+        axes[node] = (byte) axis;
+        build(from, node);
+        build(node + 1, to);
+    }
+
+    private int getWidestAxis(int from, int to) {
+        int widest = 0;
+        double widestSpread = -1;
+        for (int axis = 0; axis < DIMENSIONS; axis++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                double value = points[i * DIMENSIONS + axis];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (max - min > widestSpread) {
+                widest = axis;
+                widestSpread = max - min;
+            }
+        }
+        return widest;
+    }
+
+    /**
+     * Quickselect, puts the k-th smallest value of the axis at k, smaller or equal values
+     * before it and greater or equal values after it
+     */
+    private void select(int left, int right, int k, int axis) {
+        while (left < right) {
+            double pivot = points[((left + right) >>> 1) * DIMENSIONS + axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (points[i * DIMENSIONS + axis] < pivot) {
+                    i++;
+                }
+                while (points[j * DIMENSIONS + axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int a, int b) {
+        String id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            double value = points[a * DIMENSIONS + i];
+            points[a * DIMENSIONS + i] = points[b * DIMENSIONS + i];
+            points[b * DIMENSIONS + i] = value;
+        }
+    }
+
+    /**
+     * The k nearest boards offered so far, a max-heap on the squared distance
+     */
+    static class Neighbours {
+        private final String[] ids;
+        private final double[] distances;
+        private int size;
+
+        Neighbours(int k) {
+            this.ids = new String[k];
+            this.distances = new double[k];
+        }
+
+        /**
+         * @return squared distance a board has to beat to be one of the neighbours
+         */
+        double bound() {
+            return size < ids.length ? Double.POSITIVE_INFINITY : distances[0];
+        }
+
+        void offer(String id, double distance) {
+            if (size < ids.length) {
+                int i = size++;
+                while (i > 0 && distances[(i - 1) / 2] < distance) {
+                    ids[i] = ids[(i - 1) / 2];
+                    distances[i] = distances[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                ids[i] = id;
+                distances[i] = distance;
+            } else if (distance < distances[0]) {
+                siftDown(id, distance);
+            }
+        }
+
+        private void siftDown(String id, double distance) {
+            int i = 0;
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+                if (distances[child] <= distance) {
+                    break;
+                }
+                ids[i] = ids[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            ids[i] = id;
+            distances[i] = distance;
+        }
+
+        /**
+         * @return neighbours, nearest first, the distance is in scale units
+         */
+        List<BoardFit> toFits() {
+            List<BoardFit> fits = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                fits.add(new BoardFit(ids[i], Math.sqrt(distances[i])));
+            }
+            fits.sort(Comparator.comparingDouble(BoardFit::getDistance));
+            return fits;
+        }
+    }
+}
@@ -0,0 +1,654 @@
+package board.api.dao;
+
+import board.api.elastic.BoardBulkItemResult;
+import board.api.elastic.BoardBulkOperation;
+import board.api.elastic.BoardCursor;
+import board.api.elastic.BoardFilter;
+import board.api.elastic.BoardFit;
+import board.api.elastic.BoardLookup;
+import board.api.elastic.BoardPageParameters;
+import board.api.elastic.BoardResponse;
+import board.api.elastic.BoardSearchFilters;
+import board.api.elastic.IngestReport;
+import board.api.model.Board;
+import board.api.util.BoardUtil;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.action.update.UpdateResponse;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.rest.RestStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Board storage in memory, for benchmarks and small catalogues. Every board.search.filters
+ * field keeps a bitmap of the boards per value, so filtering is an intersection of bitmaps
+ * and a filter count is the cardinality of one. The values of a filter are counted without
+ * its own selection, like the disjunctive counts of the Elasticsearch storage. Range filters
+ * are checked against the boards left by the term filters. Sorting and paging run over the
+ * matching boards only.
+ * <p>
+ * Search is a case insensitive substring match of any word of the key against the
+ * board.search.fields, it is not fuzzy like the Elasticsearch multi match.
+ */
+@Component
+@PropertySource("classpath:board.properties")
+@ConditionalOnProperty(name = "board.storage", havingValue = "memory")
+public class InMemoryBoardDao implements BoardDao {
+
+    private static final String INDEX = "memory";
+    private static final String TYPE = "_doc";
+    private static final int FILTER_SIZE = 100;
+    private static final TypeReference<Map<String, Object>> SOURCE_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+
+    private final BoardUtil boardUtil;
+    private final ObjectMapper objectMapper;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Integer> docs = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final Map<String, Map<String, BitSet>> postings = new HashMap<>();
+    private long seqNo;
+    private volatile FitTree fitTree;
+    @Value("${board.search.filters}")
+    private List<String> filterNames;
+    @Value("${board.search.fields}")
+    private List<String> searchFields;
+    @Value("${board.ingest.bulk.actions}")
+    private int importChunkSize;
+    @Value("${board.fit.scales}")
+    private double[] fitScales;
+
+    public InMemoryBoardDao(BoardUtil boardUtil, ObjectMapper objectMapper) {
+        this.boardUtil = boardUtil;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String createBoard(Board board) {
+        board.setId(UUID.randomUUID().toString());
+        lock.writeLock().lock();
+        try {
+            put(toSource(board));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return board.getId();
+    }
+
+    @Override
+    public Board findBoardById(String id) {
+        lock.readLock().lock();
+        try {
+            Integer doc = docs.get(id);
+            if (doc == null) {
+                return null;
+            }
+            Entry entry = entries.get(doc);
+            Board board = toBoard(entry.source);
+            board.setVersion(Long.toString(entry.seqNo));
+            return board;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<BoardLookup> findBoardsByIds(List<String> ids) {
+        return ids.stream()
+                .map(id -> new BoardLookup(id, findBoardById(id)))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public UpdateResponse updateBoard(String id, HashMap<String, Object> body) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docs.get(id);
+            if (doc == null) {
+                throw new ElasticsearchStatusException("[" + TYPE + "][" + id + "]: document missing",
+                        RestStatus.NOT_FOUND);
+            }
+            Entry entry = entries.get(doc);
+            Map<String, Object> source = merge(copy(entry.source), body);
+            if (source.equals(entry.source)) {
+                return new UpdateResponse(getShardId(), TYPE, id, entry.version, DocWriteResponse.Result.NOOP);
+            }
+            unindex(doc, entry.source);
+            Entry updated = new Entry(source, entry.version + 1, ++seqNo, getSearchText(source));
+            entries.set(doc, updated);
+            index(doc, source);
+            return new UpdateResponse(getShardId(), TYPE, id, updated.version, DocWriteResponse.Result.UPDATED);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean removeBoard(String id) {
+        lock.writeLock().lock();
+        try {
+            return remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<BoardBulkItemResult> bulkBoards(List<BoardBulkOperation> operations,
+                                                WriteRequest.RefreshPolicy refreshPolicy) {
+        return operations.stream()
+                .map(this::bulkBoard)
+                .collect(Collectors.toList());
+    }
+
+    private BoardBulkItemResult bulkBoard(BoardBulkOperation operation) {
+        BoardBulkItemResult result = new BoardBulkItemResult();
+        result.setId(operation.getId());
+        result.setAction(operation.getAction());
+        if (BoardBulkOperation.DELETE.equals(operation.getAction())) {
+            boolean removed = removeBoard(operation.getId());
+            result.setStatus(removed ? RestStatus.OK.getStatus() : RestStatus.NOT_FOUND.getStatus());
+            result.setResult(removed ? "deleted" : "not_found");
+            return result;
+        }
+        try {
+            UpdateResponse response = updateBoard(operation.getId(), new HashMap<>(operation.getDoc()));
+            result.setStatus(RestStatus.OK.getStatus());
+            result.setResult(response.getResult().getLowercase());
+        } catch (ElasticsearchStatusException e) {
+            result.setStatus(e.status().getStatus());
+            result.setError(e.getMessage());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean deleteAllBoards() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            docs.clear();
+            live.clear();
+            postings.clear();
+            fitTree = null;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<BoardFilter> findFilters() {
+        lock.readLock().lock();
+        try {
+            return getFilters(live, Collections.emptyMap());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The k boards nearest to the query, from a fit tree that is rebuilt by the first search
+     * after a write
+     *
+     * @param values - weight, flex, waist width and stance width, NaN to ignore a dimension
+     * @param k - number of boards
+     * @return boards, nearest first
+     */
+    @Override
+    public List<BoardFit> findFittingBoards(double[] values, int k) {
+        lock.readLock().lock();
+        try {
+            FitTree.Neighbours neighbours = new FitTree.Neighbours(k);
+            getFitTree().nearest(FitTree.toQuery(values, fitScales), Collections.emptySet(), neighbours);
+            List<BoardFit> fits = neighbours.toFits();
+            fits.forEach(fit -> fit.setValue(toBoard(entries.get(docs.get(fit.getId())).source)));
+            return fits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private FitTree getFitTree() {
+        FitTree tree = fitTree;
+        if (tree != null) {
+            return tree;
+        }
+        synchronized (this) {
+            if (fitTree == null) {
+                Map<String, double[]> points = new HashMap<>();
+                live.stream().forEach(doc -> {
+                    Map<String, Object> source = entries.get(doc).source;
+                    double[] point = FitTree.toPoint(FitTree.getFields(source, FitTree.newFields()), fitScales);
+                    if (point != null) {
+                        points.put((String) source.get("id"), point);
+                    }
+                });
+                fitTree = new FitTree(points);
+            }
+            return fitTree;
+        }
+    }
+
+    @Override
+    public boolean addRandomBoards(int num) {
+        IngestReport report = importBoards(Stream.generate(boardUtil::getRandomBoard)
+                .limit(num)
+                .iterator());
+        return report.isComplete() && report.getFailed() == 0;
+    }
+
+    /**
+     * Import boards in chunks of board.ingest.bulk.actions. A chunk is read from the iterator,
+     * which may be a request body still arriving, outside the lock and then applied under it.
+     */
+    @Override
+    public IngestReport importBoards(Iterator<Board> boards) {
+        long startedAt = System.currentTimeMillis();
+        long indexed = 0;
+        int chunkSize = Math.max(1, importChunkSize);
+        while (boards.hasNext()) {
+            List<Map<String, Object>> chunk = new ArrayList<>(chunkSize);
+            while (chunk.size() < chunkSize && boards.hasNext()) {
+                Board board = boards.next();
+                if (board.getId() == null) {
+                    board.setId(UUID.randomUUID().toString());
+                }
+                chunk.add(toSource(board));
+            }
+            lock.writeLock().lock();
+            try {
+                for (Map<String, Object> source : chunk) {
+                    remove((String) source.get("id"));
+                    put(source);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            indexed += chunk.size();
+        }
+        IngestReport report = new IngestReport();
+        report.setIndexed(indexed);
+        report.setComplete(true);
+        report.setTookMs(System.currentTimeMillis() - startedAt);
+        report.setBoardsPerSecond(report.getTookMs() == 0 ? indexed : indexed * 1000.0 / report.getTookMs());
+        return report;
+    }
+
+    @Override
+    public BoardResponse findBoards(BoardPageParameters pageParameters, Map<String, String> searchFilters) {
+        lock.readLock().lock();
+        try {
+            BitSet hits = getHits(searchFilters);
+            BoardResponse response = getPage(hits, pageParameters);
+            if (pageParameters.getCursor() == null || pageParameters.getCursor().isFirstPage()) {
+                response.setFilters(getFilters(hits, searchFilters));
+            }
+            return response;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public BoardResponse searchBoards(BoardPageParameters pageParameters, String q) {
+        List<String> words = Stream.of(q.toLowerCase(Locale.ROOT).split("\\s+"))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toList());
+        lock.readLock().lock();
+        try {
+            BitSet hits = new BitSet();
+            live.stream()
+                    .filter(doc -> words.stream().anyMatch(entries.get(doc).searchText::contains))
+                    .forEach(hits::set);
+            return getPage(hits, pageParameters);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void exportBoards(Map<String, String> searchFilters, int slices, OutputStream out) {
+        List<Map<String, Object>> sources;
+        lock.readLock().lock();
+        try {
+            sources = getHits(searchFilters).stream()
+                    .mapToObj(doc -> entries.get(doc).source)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            for (Map<String, Object> source : sources) {
+                out.write(objectMapper.writeValueAsBytes(source));
+                out.write('\n');
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new ElasticsearchException("Board export failed", e);
+        }
+    }
+
+    private BitSet getHits(Map<String, String> searchFilters) {
+        return getHits(searchFilters, null);
+    }
+
+    /**
+     * Boards matching the filters
+     *
+     * @param searchFilters - selected filters
+     * @param excluded - term filter to ignore, null to apply all of them
+     * @return hits
+     */
+    private BitSet getHits(Map<String, String> searchFilters, String excluded) {
+        BitSet hits = (BitSet) live.clone();
+        searchFilters.forEach((key, value) -> {
+            if (!BoardSearchFilters.isRange(key) && !key.equals(excluded)) {
+                Map<String, BitSet> values = postings.getOrDefault(key, Collections.emptyMap());
+                BitSet any = new BitSet();
+                BoardSearchFilters.getValues(value).stream()
+                        .map(values::get)
+                        .filter(Objects::nonNull)
+                        .forEach(any::or);
+                hits.and(any);
+            }
+        });
+        searchFilters.forEach((key, value) -> {
+            if (BoardSearchFilters.isRange(key)) {
+                String[] path = BoardSearchFilters.getRangeField(key).split("\\.");
+                double bound = Double.parseDouble(value);
+                boolean min = BoardSearchFilters.isMin(key);
+                int[] misses = hits.stream()
+                        .filter(doc -> !isInRange(entries.get(doc).source, path, bound, min))
+                        .toArray();
+                for (int doc : misses) {
+                    hits.clear(doc);
+                }
+            }
+        });
+        return hits;
+    }
+
+    private static boolean isInRange(Map<String, Object> source, String[] path, double bound, boolean min) {
+        List<Object> values = new ArrayList<>();
+        collectValues(source, path, 0, values);
+        return values.stream()
+                .filter(value -> value instanceof Number)
+                .mapToDouble(value -> ((Number) value).doubleValue())
+                .anyMatch(value -> min ? value >= bound : value <= bound);
+    }
+
+    private List<BoardFilter> getFilters(BitSet hits, Map<String, String> searchFilters) {
+        return filterNames.stream()
+                .map(name -> new BoardFilter(name,
+                        getFilterValues(name, searchFilters.containsKey(name) ? getHits(searchFilters, name) : hits),
+                        searchFilters.getOrDefault(name, "")))
+                .collect(Collectors.toList());
+    }
+
+    private Map<String, Long> getFilterValues(String name, BitSet hits) {
+        Map<String, Long> counts = new HashMap<>();
+        postings.getOrDefault(name, Collections.emptyMap()).forEach((value, docs) -> {
+            BitSet matching = (BitSet) docs.clone();
+            matching.and(hits);
+            if (!matching.isEmpty()) {
+                counts.put(value, (long) matching.cardinality());
+            }
+        });
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(FILTER_SIZE)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    /**
+     * Sorted page of the hits. Pages are ordered by the sort field and then by id, like the
+     * search_after tiebreaker, so cursors stay stable while boards are written. Only the
+     * boards up to the end of the page are kept in order, not all the hits.
+     */
+    private BoardResponse getPage(BitSet hits, BoardPageParameters pageParameters) {
+        boolean descending = "desc".equalsIgnoreCase(pageParameters.getSortOrder());
+        Comparator<Hit> order = (a, b) -> {
+            int result = compareValues(a.sortValue, b.sortValue, descending);
+            return result != 0 ? result : a.id.compareTo(b.id);
+        };
+        String[] sortPath = pageParameters.getSortBy().split("\\.");
+        BoardCursor cursor = pageParameters.getCursor();
+        int skip = cursor == null ? pageParameters.getPage() * pageParameters.getPageSize() : 0;
+        Hit after = null;
+        if (cursor != null && !cursor.isFirstPage()) {
+            after = new Hit(-1, cursor.getSearchAfter()[0], String.valueOf(cursor.getSearchAfter()[1]));
+        }
+        int size = (int) Math.min((long) skip + pageParameters.getPageSize(), hits.cardinality());
+        PriorityQueue<Hit> top = new PriorityQueue<>(Math.max(size, 1), order.reversed());
+        for (int doc = hits.nextSetBit(0); doc >= 0 && size > 0; doc = hits.nextSetBit(doc + 1)) {
+            Map<String, Object> source = entries.get(doc).source;
+            List<Object> values = new ArrayList<>();
+            collectValues(source, sortPath, 0, values);
+            Hit hit = new Hit(doc, values.isEmpty() ? null : values.get(0), (String) source.get("id"));
+            if (after != null && order.compare(hit, after) <= 0) {
+                continue;
+            }
+            if (top.size() < size) {
+                top.add(hit);
+            } else if (order.compare(hit, top.peek()) < 0) {
+                top.poll();
+                top.add(hit);
+            }
+        }
+        List<Hit> page = top.stream()
+                .sorted(order)
+                .skip(skip)
+                .collect(Collectors.toList());
+
+        BoardResponse response = new BoardResponse();
+        response.setValues(page.stream()
+                .map(hit -> pageParameters.getFields() == null
+                        ? toBoard(entries.get(hit.doc).source)
+                        : toProjection(entries.get(hit.doc).source, pageParameters.getFields()))
+                .collect(Collectors.toList()));
+        response.setPage(pageParameters.getPage());
+        response.setPageSize(pageParameters.getPageSize());
+        response.setTotal(hits.cardinality());
+        response.setTotalPages(pageParameters.getPageSize() == 0 ? 1
+                : (int) Math.ceil((double) response.getTotal() / pageParameters.getPageSize()));
+        if (cursor != null && !page.isEmpty() && page.size() == pageParameters.getPageSize()) {
+            Hit last = page.get(page.size() - 1);
+            response.setNextCursor(new BoardCursor(pageParameters.getSortBy(), pageParameters.getSortOrder(),
+                    new Object[]{last.sortValue, last.id}).encode());
+        }
+        return response;
+    }
+
+    /**
+     * Missing values sort last in both orders, like in Elasticsearch
+     */
+    private static int compareValues(Object a, Object b, boolean descending) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : 1) : -1;
+        }
+        int result = a instanceof Number && b instanceof Number
+                ? Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue())
+                : a.toString().compareTo(b.toString());
+        return descending ? -result : result;
+    }
+
+    /**
+     * Lower case values of the search fields, separated by a character a search word can
+     * not contain, so a word never matches across two values
+     */
+    private String getSearchText(Map<String, Object> source) {
+        return searchFields.stream()
+                .flatMap(field -> getValues(source, field).stream())
+                .map(value -> value.toString().toLowerCase(Locale.ROOT))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private void put(Map<String, Object> source) {
+        int doc = live.nextClearBit(0);
+        Entry entry = new Entry(source, 1, ++seqNo, getSearchText(source));
+        if (doc == entries.size()) {
+            entries.add(entry);
+        } else {
+            entries.set(doc, entry);
+        }
+        docs.put((String) source.get("id"), doc);
+        live.set(doc);
+        index(doc, source);
+    }
+
+    private boolean remove(String id) {
+        Integer doc = docs.remove(id);
+        if (doc == null) {
+            return false;
+        }
+        unindex(doc, entries.get(doc).source);
+        entries.set(doc, null);
+        live.clear(doc);
+        return true;
+    }
+
+    private void index(int doc, Map<String, Object> source) {
+        fitTree = null;
+        for (String name : filterNames) {
+            Map<String, BitSet> values = postings.computeIfAbsent(name, key -> new HashMap<>());
+            getValues(source, name).forEach(value ->
+                    values.computeIfAbsent(value.toString(), key -> new BitSet()).set(doc));
+        }
+    }
+
+    private void unindex(int doc, Map<String, Object> source) {
+        fitTree = null;
+        for (String name : filterNames) {
+            Map<String, BitSet> values = postings.get(name);
+            if (values == null) {
+                continue;
+            }
+            getValues(source, name).forEach(value -> {
+                BitSet bits = values.get(value.toString());
+                if (bits != null) {
+                    bits.clear(doc);
+                    if (bits.isEmpty()) {
+                        values.remove(value.toString());
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Values of a field path like features.description, arrays are flattened. A path that
+     * goes below a leaf value (a multi-field like name.text) resolves to the leaf.
+     */
+    private static List<Object> getValues(Map<String, Object> source, String path) {
+        List<Object> values = new ArrayList<>();
+        collectValues(source, path.split("\\."), 0, values);
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void collectValues(Object node, String[] path, int index, List<Object> values) {
+        if (node == null) {
+            return;
+        }
+        if (node instanceof List) {
+            ((List<Object>) node).forEach(element -> collectValues(element, path, index, values));
+        } else if (index == path.length || !(node instanceof Map)) {
+            values.add(node);
+        } else {
+            collectValues(((Map<String, Object>) node).get(path[index]), path, index + 1, values);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> merge(Map<String, Object> source, Map<String, Object> doc) {
+        doc.forEach((key, value) -> {
+            Object current = source.get(key);
+            if (current instanceof Map && value instanceof Map) {
+                merge((Map<String, Object>) current, (Map<String, Object>) value);
+            } else {
+                source.put(key, value);
+            }
+        });
+        return source;
+    }
+
+    private Map<String, Object> copy(Map<String, Object> source) {
+        return objectMapper.convertValue(source, SOURCE_TYPE);
+    }
+
+    private Map<String, Object> toSource(Board board) {
+        return objectMapper.convertValue(board, SOURCE_TYPE);
+    }
+
+    private Board toBoard(Map<String, Object> source) {
+        return objectMapper.convertValue(source, Board.class);
+    }
+
+    private Map<String, Object> toProjection(Map<String, Object> source, List<String> fields) {
+        Map<String, Object> projection = new LinkedHashMap<>();
+        fields.stream()
+                .filter(source::containsKey)
+                .forEach(field -> projection.put(field, source.get(field)));
+        projection.put("id", source.get("id"));
+        return objectMapper.convertValue(projection, SOURCE_TYPE);
+    }
+
+    private static ShardId getShardId() {
+        return new ShardId(INDEX, "_na_", 0);
+    }
+
+    private static class Entry {
+        private final Map<String, Object> source;
+        private final long version;
+        private final long seqNo;
+        private final String searchText;
+
+        private Entry(Map<String, Object> source, long version, long seqNo, String searchText) {
+            this.source = source;
+            this.version = version;
+            this.seqNo = seqNo;
+            this.searchText = searchText;
+        }
+    }
+
+    private static class Hit {
+        private final int doc;
+        private final Object sortValue;
+        private final String id;
+
+        private Hit(int doc, Object sortValue, String id) {
+            this.doc = doc;
+            this.sortValue = sortValue;
+            this.id = id;
+        }
+    }
+}
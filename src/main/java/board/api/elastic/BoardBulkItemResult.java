@@ -0,0 +1,12 @@
+package board.api.elastic;
+
+import lombok.Data;
+
+@Data
+public class BoardBulkItemResult {
+    private String id;
+    private String action;
+    private int status;
+    private String result;
+    private String error;
+}
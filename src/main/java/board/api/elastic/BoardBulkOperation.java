@@ -0,0 +1,15 @@
+package board.api.elastic;
+
+import lombok.Data;
+
+import java.util.HashMap;
+
+@Data
+public class BoardBulkOperation {
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+
+    private String action;
+    private String id;
+    private HashMap<String, Object> doc;
+}
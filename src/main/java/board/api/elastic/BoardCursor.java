@@ -0,0 +1,58 @@
+package board.api.elastic;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * Position of a page in cursor mode: sort values of the last board of the previous page
+ * for the sort the cursor was issued for. A cursor without sort values points to the first page.
+ */
+@Data
+public class BoardCursor {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private String sortBy;
+    private String sortOrder;
+    private Object[] searchAfter;
+
+    public BoardCursor() {
+    }
+
+    public BoardCursor(String sortBy, String sortOrder, Object[] searchAfter) {
+        this.sortBy = sortBy;
+        this.sortOrder = sortOrder;
+        this.searchAfter = searchAfter;
+    }
+
+    @JsonIgnore
+    public boolean isFirstPage() {
+        return searchAfter == null || searchAfter.length == 0;
+    }
+
+    public String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(this));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode cursor", e);
+        }
+    }
+
+    /**
+     * Decode an opaque cursor
+     *
+     * @param cursor - cursor returned as nextCursor
+     * @return cursor
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static BoardCursor decode(String cursor) {
+        try {
+            return MAPPER.readValue(Base64.getUrlDecoder().decode(cursor), BoardCursor.class);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package board.api.elastic;
+
+import board.api.model.Board;
+import lombok.Data;
+
+@Data
+public class BoardFit {
+    private String id;
+    private double distance;
+    private Board value;
+
+    public BoardFit(String id, double distance) {
+        this.id = id;
+        this.distance = distance;
+    }
+}
@@ -0,0 +1,87 @@
+package board.api.elastic;
+
+import board.api.model.Board;
+import org.elasticsearch.action.admin.indices.alias.Alias;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.client.GetAliasesResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Creates the versioned board index with the managed mapping from elastic/snowboard-v{version}.json
+ * and points the board index alias at it. An index that already carries the alias name is left
+ * untouched, moving its documents to the versioned index is a reindex done by an operator.
+ */
+@Component
+@PropertySource("classpath:board.properties")
+@ConditionalOnProperty(name = "board.storage", havingValue = "elasticsearch", matchIfMissing = true)
+public class BoardIndexInitializer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BoardIndexInitializer.class);
+
+    private final RestHighLevelClient client;
+    private final ElasticsearchOperations elasticsearchOperations;
+    @Value("${board.index.version}")
+    private int version;
+    @Value("${board.index.create}")
+    private boolean create;
+
+    public BoardIndexInitializer(RestHighLevelClient client, ElasticsearchOperations elasticsearchOperations) {
+        this.client = client;
+        this.elasticsearchOperations = elasticsearchOperations;
+    }
+
+    @PostConstruct
+    public void createIndex() {
+        if (!create) {
+            return;
+        }
+        String alias = elasticsearchOperations.getPersistentEntityFor(Board.class).getIndexName();
+        String index = alias + "_v" + version;
+        try {
+            GetAliasesResponse aliases = client.indices().getAlias(new GetAliasesRequest(alias), RequestOptions.DEFAULT);
+            Set<String> aliasIndices = aliases.getAliases().keySet();
+            if (aliasIndices.contains(index)) {
+                return;
+            }
+            if (!aliasIndices.isEmpty()) {
+                LOG.warn("Alias {} points to {}, mapping version {} needs a reindex into {}",
+                        alias, aliasIndices, version, index);
+                return;
+            }
+            if (client.indices().exists(new GetIndexRequest(alias), RequestOptions.DEFAULT)) {
+                LOG.warn("Index {} was created without the managed mapping, reindex it into {} and alias it as {}",
+                        alias, index, alias);
+                return;
+            }
+            client.indices().create(new CreateIndexRequest(index)
+                    .source(getIndexSource(), XContentType.JSON)
+                    .alias(new Alias(alias)), RequestOptions.DEFAULT);
+            LOG.info("Created index {} with mapping version {} as {}", index, version, alias);
+        } catch (IOException e) {
+            LOG.error("Failed to create index {}", index, e);
+        }
+    }
+
+    private String getIndexSource() throws IOException {
+        ClassPathResource resource = new ClassPathResource("elastic/snowboard-v" + version + ".json");
+        return StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8);
+    }
+}
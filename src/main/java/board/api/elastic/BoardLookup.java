@@ -0,0 +1,17 @@
+package board.api.elastic;
+
+import board.api.model.Board;
+import lombok.Data;
+
+@Data
+public class BoardLookup {
+    private String id;
+    private boolean found;
+    private Board value;
+
+    public BoardLookup(String id, Board value) {
+        this.id = id;
+        this.found = value != null;
+        this.value = value;
+    }
+}
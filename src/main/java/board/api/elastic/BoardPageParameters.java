@@ -2,10 +2,14 @@ package board.api.elastic;
 
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class BoardPageParameters {
     private int page;
     private int pageSize;
     private String sortBy;
     private String sortOrder;
+    private BoardCursor cursor;
+    private List<String> fields;
 }
@@ -0,0 +1,45 @@
+package board.api.elastic;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Syntax of the selected filters. A term filter selects one or more comma separated values of
+ * a board.search.filters field, a board matches when it has any of them. A range filter is
+ * keyed by a board.search.ranges field with a .min or .max suffix and bounds it inclusively.
+ */
+public final class BoardSearchFilters {
+
+    public static final String MIN = ".min";
+    public static final String MAX = ".max";
+
+    private BoardSearchFilters() {
+    }
+
+    public static List<String> getValues(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    public static boolean isRange(String key) {
+        return key.endsWith(MIN) || key.endsWith(MAX);
+    }
+
+    public static boolean isMin(String key) {
+        return key.endsWith(MIN);
+    }
+
+    /**
+     * Field of a range filter
+     *
+     * @param key - range filter key like spec.flex.min
+     * @return field like spec.flex
+     */
+    public static String getRangeField(String key) {
+        return key.substring(0, key.length() - (isMin(key) ? MIN.length() : MAX.length()));
+    }
+}
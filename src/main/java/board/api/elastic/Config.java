@@ -1,26 +1,92 @@
 package board.api.elastic;
 
+import org.apache.http.HttpHost;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.elasticsearch.client.Node;
+import org.elasticsearch.client.NodeSelector;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestClientBuilder;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.elasticsearch.client.ClientConfiguration;
-import org.springframework.data.elasticsearch.client.RestClients;
 import org.springframework.data.elasticsearch.config.AbstractElasticsearchConfiguration;
-import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
-import org.springframework.data.elasticsearch.core.query.UpdateQueryBuilder;
 import org.springframework.data.elasticsearch.repository.config.EnableElasticsearchRepositories;
 
+import java.util.List;
+
+/**
+ * Elasticsearch client configured from the board.elasticsearch properties. Requests are spread
+ * round robin over the configured hosts, or over the sniffed nodes when sniffing is enabled.
+ */
 @Configuration
 @EnableElasticsearchRepositories(basePackages = "board.api.model")
 @ComponentScan(basePackages = "board.api")
 public class Config extends AbstractElasticsearchConfiguration {
 
+    @Value("${board.elasticsearch.hosts}")
+    private List<String> hosts;
+    @Value("${board.elasticsearch.connect.timeout.ms}")
+    private int connectTimeoutMs;
+    @Value("${board.elasticsearch.socket.timeout.ms}")
+    private int socketTimeoutMs;
+    @Value("${board.elasticsearch.max.connections.total}")
+    private int maxConnectionsTotal;
+    @Value("${board.elasticsearch.max.connections.per.route}")
+    private int maxConnectionsPerRoute;
+    @Value("${board.elasticsearch.io.threads}")
+    private int ioThreads;
+    @Value("${board.elasticsearch.skip.dedicated.masters}")
+    private boolean skipDedicatedMasters;
+    @Autowired
+    private ObjectProvider<ElasticsearchNodeSniffer> nodeSniffer;
+
+    /**
+     * Connection pool of the rest client, a bean of its own so its usage can be measured
+     *
+     * @return connection manager
+     */
     @Bean
-    public RestHighLevelClient elasticsearchClient() {
-        ClientConfiguration clientConfiguration = ClientConfiguration.builder()
-                .connectedTo("localhost:9200")
+    public PoolingNHttpClientConnectionManager elasticsearchConnectionManager() {
+        IOReactorConfig reactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(ioThreads > 0 ? ioThreads : Runtime.getRuntime().availableProcessors())
+                .setConnectTimeout(connectTimeoutMs)
+                .setSoTimeout(socketTimeoutMs)
                 .build();
-        return RestClients.create(clientConfiguration).rest();
+        PoolingNHttpClientConnectionManager connectionManager;
+        try {
+            connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(reactorConfig));
+        } catch (IOReactorException e) {
+            throw new IllegalStateException("Failed to start the Elasticsearch client I/O reactor", e);
+        }
+        connectionManager.setMaxTotal(maxConnectionsTotal);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        return connectionManager;
+    }
+
+    @Bean
+    public RestHighLevelClient elasticsearchClient() {
+        RestClientBuilder builder = RestClient.builder(hosts.stream()
+                .map(HttpHost::create)
+                .toArray(HttpHost[]::new))
+                .setNodeSelector(skipDedicatedMasters ? NodeSelector.SKIP_DEDICATED_MASTERS : NodeSelector.ANY)
+                .setFailureListener(new RestClient.FailureListener() {
+                    @Override
+                    public void onFailure(Node node) {
+                        nodeSniffer.ifAvailable(sniffer -> sniffer.onFailure(node));
+                    }
+                })
+                .setRequestConfigCallback(requestConfig -> requestConfig
+                        .setConnectTimeout(connectTimeoutMs)
+                        .setSocketTimeout(socketTimeoutMs))
+                .setHttpClientConfigCallback(httpClient -> httpClient
+                        .setConnectionManager(elasticsearchConnectionManager()));
+        return new RestHighLevelClient(builder);
     }
 }
@@ -0,0 +1,129 @@
+package board.api.elastic;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.Node;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the nodes of the rest client in line with the cluster. The HTTP addresses and roles of
+ * the nodes are read from the nodes info API at a fixed interval, and again right after a node
+ * failed, at most once per board.elasticsearch.sniff.after.failure.delay.ms.
+ */
+@Component
+@ConditionalOnProperty(name = "board.elasticsearch.sniff.enabled", havingValue = "true")
+public class ElasticsearchNodeSniffer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ElasticsearchNodeSniffer.class);
+
+    private final RestClient client;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService sniffExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "elasticsearch-sniffer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong nextFailureSniff = new AtomicLong();
+    @Value("${board.elasticsearch.hosts}")
+    private List<String> hosts;
+    @Value("${board.elasticsearch.sniff.interval.ms}")
+    private long sniffIntervalMs;
+    @Value("${board.elasticsearch.sniff.after.failure.delay.ms}")
+    private long sniffAfterFailureDelayMs;
+
+    public ElasticsearchNodeSniffer(RestHighLevelClient client, ObjectMapper objectMapper) {
+        this.client = client.getLowLevelClient();
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        sniffExecutor.scheduleWithFixedDelay(this::sniff, 0, sniffIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sniffExecutor.shutdownNow();
+    }
+
+    public void onFailure(Node node) {
+        long now = System.currentTimeMillis();
+        long next = nextFailureSniff.get();
+        if (now >= next && nextFailureSniff.compareAndSet(next, now + sniffAfterFailureDelayMs)) {
+            LOG.info("Elasticsearch node {} failed, sniffing nodes", node.getHost());
+            sniffExecutor.execute(this::sniff);
+        }
+    }
+
+    void sniff() {
+        try {
+            List<Node> nodes = getNodes();
+            if (nodes.isEmpty()) {
+                LOG.warn("Sniffed no Elasticsearch nodes, keeping {}", client.getNodes());
+                return;
+            }
+            client.setNodes(nodes);
+            LOG.debug("Sniffed Elasticsearch nodes {}", nodes);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Sniffing Elasticsearch nodes failed", e);
+        }
+    }
+
+    private List<Node> getNodes() throws IOException {
+        Response response = client.performRequest(new Request("GET", "/_nodes/http"));
+        JsonNode nodes;
+        try (InputStream content = response.getEntity().getContent()) {
+            nodes = objectMapper.readTree(content).path("nodes");
+        }
+        String scheme = HttpHost.create(hosts.get(0)).getSchemeName();
+        List<Node> result = new ArrayList<>();
+        nodes.forEach(node -> {
+            String address = node.path("http").path("publish_address").asText(null);
+            if (address != null) {
+                result.add(new Node(toHost(address, scheme), null, node.path("name").asText(null),
+                        node.path("version").asText(null), toRoles(node.path("roles")), null));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Host of a publish address, either ip:port or hostname/ip:port
+     */
+    private static HttpHost toHost(String address, String scheme) {
+        int slash = address.indexOf('/');
+        if (slash < 0) {
+            return HttpHost.create(scheme + "://" + address);
+        }
+        int port = Integer.parseInt(address.substring(address.lastIndexOf(':') + 1));
+        return new HttpHost(address.substring(0, slash), port, scheme);
+    }
+
+    private static Node.Roles toRoles(JsonNode roles) {
+        Set<String> names = new HashSet<>();
+        roles.forEach(role -> names.add(role.asText()));
+        return new Node.Roles(names.contains("master"), names.contains("data"), names.contains("ingest"));
+    }
+}
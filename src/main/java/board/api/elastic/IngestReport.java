@@ -0,0 +1,15 @@
+package board.api.elastic;
+
+import lombok.Data;
+
+@Data
+public class IngestReport {
+    private long indexed;
+    private long failed;
+    private long bulkRequests;
+    private long tookMs;
+    private double boardsPerSecond;
+    private long pending;
+    private boolean complete;
+    private String error;
+}
@@ -0,0 +1,90 @@
+package board.api.keycloak;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.keycloak.adapters.AdapterTokenStore;
+import org.keycloak.adapters.BearerTokenRequestAuthenticator;
+import org.keycloak.adapters.KeycloakDeployment;
+import org.keycloak.adapters.RequestAuthenticator;
+import org.keycloak.adapters.spi.AuthOutcome;
+import org.keycloak.adapters.spi.HttpFacade;
+import org.keycloak.adapters.springsecurity.authentication.RequestAuthenticatorFactory;
+import org.keycloak.adapters.springsecurity.authentication.SpringSecurityRequestAuthenticator;
+import org.keycloak.representations.AccessToken;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Locale;
+
+/**
+ * Request authenticators that verify a bearer token once and then take it from the
+ * {@link TokenVerificationCache} until it expires. Authentication is timed as board.auth,
+ * tagged with the outcome and whether the token came from the cache.
+ */
+@Component
+public class CachingRequestAuthenticatorFactory implements RequestAuthenticatorFactory {
+
+    private final TokenVerificationCache cache;
+    private final MeterRegistry registry;
+
+    public CachingRequestAuthenticatorFactory(TokenVerificationCache cache, MeterRegistry registry) {
+        this.cache = cache;
+        this.registry = registry;
+    }
+
+    @Override
+    public RequestAuthenticator createRequestAuthenticator(HttpFacade facade, HttpServletRequest request,
+                                                           KeycloakDeployment deployment,
+                                                           AdapterTokenStore tokenStore, int sslRedirectPort) {
+        return new SpringSecurityRequestAuthenticator(facade, request, deployment, tokenStore, sslRedirectPort) {
+            private CachingBearerTokenRequestAuthenticator bearer;
+
+            @Override
+            public AuthOutcome authenticate() {
+                Timer.Sample sample = Timer.start(registry);
+                AuthOutcome outcome = super.authenticate();
+                sample.stop(Timer.builder("board.auth")
+                        .description("Bearer token authentication")
+                        .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                        .tag("cache", bearer == null ? "none" : bearer.cached ? "hit" : "miss")
+                        .register(registry));
+                return outcome;
+            }
+
+            @Override
+            protected BearerTokenRequestAuthenticator createBearerTokenAuthenticator() {
+                bearer = new CachingBearerTokenRequestAuthenticator(deployment);
+                return bearer;
+            }
+        };
+    }
+
+    private class CachingBearerTokenRequestAuthenticator extends BearerTokenRequestAuthenticator {
+        private boolean cached;
+
+        private CachingBearerTokenRequestAuthenticator(KeycloakDeployment deployment) {
+            super(deployment);
+        }
+
+        /**
+         * A cached token skips the signature check, it is still checked against the expiry and
+         * the not-before of the realm. Tokens with a surrogate are always verified.
+         */
+        @Override
+        protected AuthOutcome authenticateToken(HttpFacade exchange, String tokenString) {
+            AccessToken cachedToken = cache.get(tokenString);
+            if (cachedToken != null && cachedToken.isActive()
+                    && cachedToken.getIat() != null && cachedToken.getIat() >= deployment.getNotBefore()) {
+                cached = true;
+                token = cachedToken;
+                surrogate = null;
+                return AuthOutcome.AUTHENTICATED;
+            }
+            AuthOutcome outcome = super.authenticateToken(exchange, tokenString);
+            if (outcome == AuthOutcome.AUTHENTICATED && surrogate == null) {
+                cache.put(tokenString, token);
+            }
+            return outcome;
+        }
+    }
+}
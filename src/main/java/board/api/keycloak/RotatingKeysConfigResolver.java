@@ -0,0 +1,57 @@
+package board.api.keycloak;
+
+import org.keycloak.adapters.KeycloakDeployment;
+import org.keycloak.adapters.rotation.JWKPublicKeyLocator;
+import org.keycloak.adapters.spi.HttpFacade;
+import org.keycloak.adapters.springboot.KeycloakSpringBootConfigResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Spring Boot config resolver that replaces the on-demand JWKS locator of the deployment with a
+ * {@link RotatingPublicKeyLocator}. The deployment is resolved when the application is ready,
+ * so the realm keys are loaded before the first request.
+ */
+class RotatingKeysConfigResolver extends KeycloakSpringBootConfigResolver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RotatingKeysConfigResolver.class);
+
+    private final long refreshIntervalMs;
+    private volatile boolean installed;
+
+    RotatingKeysConfigResolver(long refreshIntervalMs) {
+        this.refreshIntervalMs = refreshIntervalMs;
+    }
+
+    @Override
+    public KeycloakDeployment resolve(HttpFacade.Request request) {
+        KeycloakDeployment deployment = super.resolve(request);
+        if (!installed) {
+            install(deployment);
+        }
+        return deployment;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prefetchKeys() {
+        try {
+            resolve(null);
+        } catch (RuntimeException e) {
+            LOG.warn("Keycloak deployment is not resolved at startup, realm keys are loaded on first request", e);
+        }
+    }
+
+    private synchronized void install(KeycloakDeployment deployment) {
+        if (installed) {
+            return;
+        }
+        if (deployment.getPublicKeyLocator() instanceof JWKPublicKeyLocator) {
+            RotatingPublicKeyLocator locator = new RotatingPublicKeyLocator(deployment.getPublicKeyLocator());
+            locator.start(deployment, refreshIntervalMs);
+            deployment.setPublicKeyLocator(locator);
+        }
+        installed = true;
+    }
+}
@@ -0,0 +1,83 @@
+package board.api.keycloak;
+
+import org.apache.http.client.methods.HttpGet;
+import org.keycloak.adapters.HttpAdapterUtils;
+import org.keycloak.adapters.KeycloakDeployment;
+import org.keycloak.adapters.rotation.PublicKeyLocator;
+import org.keycloak.jose.jwk.JSONWebKeySet;
+import org.keycloak.jose.jwk.JWK;
+import org.keycloak.util.JWKSUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Public keys of the realm, fetched from the JWKS endpoint in the background. Keys are loaded
+ * at startup and reloaded at a fixed interval, so a rotated key is usually known before the
+ * first token signed with it arrives. A token with an unknown key id triggers a reload in the
+ * background and is verified through the adapter's own locator meanwhile.
+ */
+class RotatingPublicKeyLocator implements PublicKeyLocator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RotatingPublicKeyLocator.class);
+
+    private final PublicKeyLocator fallback;
+    private final ScheduledExecutorService refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "keycloak-keys");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Map<String, PublicKey> keys = Collections.emptyMap();
+
+    RotatingPublicKeyLocator(PublicKeyLocator fallback) {
+        this.fallback = fallback;
+    }
+
+    void start(KeycloakDeployment deployment, long refreshIntervalMs) {
+        refreshExecutor.scheduleWithFixedDelay(() -> refresh(deployment), 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public PublicKey getPublicKey(String kid, KeycloakDeployment deployment) {
+        Map<String, PublicKey> current = keys;
+        PublicKey key = kid == null && current.size() == 1 ? current.values().iterator().next() : current.get(kid);
+        if (key != null) {
+            return key;
+        }
+        refreshAsync(deployment);
+        return fallback.getPublicKey(kid, deployment);
+    }
+
+    @Override
+    public void reset(KeycloakDeployment deployment) {
+        fallback.reset(deployment);
+        refreshAsync(deployment);
+    }
+
+    private void refreshAsync(KeycloakDeployment deployment) {
+        if (refreshing.compareAndSet(false, true)) {
+            refreshExecutor.execute(() -> refresh(deployment));
+        }
+    }
+
+    private void refresh(KeycloakDeployment deployment) {
+        try {
+            JSONWebKeySet jwks = HttpAdapterUtils.sendJsonHttpRequest(
+                    deployment, new HttpGet(deployment.getJwksUrl()), JSONWebKeySet.class);
+            keys = JWKSUtils.getKeysForUse(jwks, JWK.Use.SIG);
+            LOG.debug("Loaded {} realm public keys", keys.size());
+        } catch (Exception e) {
+            LOG.warn("Failed to load the realm public keys from {}", deployment.getJwksUrl(), e);
+        } finally {
+            refreshing.set(false);
+        }
+    }
+}
@@ -9,11 +9,13 @@ import org.keycloak.adapters.springsecurity.config.KeycloakWebSecurityConfigurer
 import org.keycloak.adapters.springsecurity.filter.KeycloakAuthenticationProcessingFilter;
 import org.keycloak.adapters.springsecurity.filter.KeycloakPreAuthActionsFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.annotation.Scope;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -25,6 +27,7 @@ import org.springframework.security.web.authentication.session.SessionAuthentica
 @Configuration
 @EnableWebSecurity
 @ComponentScan(basePackageClasses = KeycloakSecurityComponents.class)
+@PropertySource("classpath:board.properties")
 class SecurityConfig
         extends KeycloakWebSecurityConfigurerAdapter
 {
@@ -40,9 +43,21 @@ class SecurityConfig
         auth.authenticationProvider(keycloakAuthenticationProvider);
     }
 
+    @Autowired
+    public CachingRequestAuthenticatorFactory requestAuthenticatorFactory;
+
+    @Bean
+    public KeycloakSpringBootConfigResolver KeycloakConfigResolver(
+            @Value("${board.auth.keys.refresh.interval.ms}") long keysRefreshIntervalMs) {
+        return new RotatingKeysConfigResolver(keysRefreshIntervalMs);
+    }
+
     @Bean
-    public KeycloakSpringBootConfigResolver KeycloakConfigResolver() {
-        return new KeycloakSpringBootConfigResolver();
+    @Override
+    protected KeycloakAuthenticationProcessingFilter keycloakAuthenticationProcessingFilter() throws Exception {
+        KeycloakAuthenticationProcessingFilter filter = super.keycloakAuthenticationProcessingFilter();
+        filter.setRequestAuthenticatorFactory(requestAuthenticatorFactory);
+        return filter;
     }
 
     @Bean
@@ -80,7 +95,7 @@ class SecurityConfig
     protected void configure(HttpSecurity http) throws Exception {
         super.configure(http);
         http.authorizeRequests()
-                .antMatchers("/boards*").hasAnyRole("customer", "manager", "craftsman")
+                .antMatchers("/boards*", "/async/boards*").hasAnyRole("customer", "manager", "craftsman")
                 .anyRequest().permitAll()
                 .and().csrf().disable();
     }
@@ -0,0 +1,100 @@
+package board.api.keycloak;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.keycloak.representations.AccessToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LRU cache of verified bearer tokens, keyed by the SHA-256 of the token so the cache does not
+ * hold usable credentials. An entry expires with its token, or after board.auth.cache.ttl.ms
+ * if that comes first, so a revocation through not-before is seen within the TTL.
+ */
+@Component
+@PropertySource("classpath:board.properties")
+public class TokenVerificationCache implements MeterBinder {
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    @Value("${board.auth.cache.max.entries}")
+    private int maxEntries;
+    @Value("${board.auth.cache.ttl.ms}")
+    private long ttlMs;
+
+    /**
+     * Verified token
+     *
+     * @param tokenString - bearer token
+     * @return token, null when it was not verified or expired
+     */
+    public AccessToken get(String tokenString) {
+        String key = getKey(tokenString);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.token;
+        }
+    }
+
+    public void put(String tokenString, AccessToken token) {
+        if (token.getExp() == null) {
+            return;
+        }
+        long expiresAt = Math.min(TimeUnit.SECONDS.toMillis(token.getExp()), System.currentTimeMillis() + ttlMs);
+        String key = getKey(tokenString);
+        synchronized (this) {
+            entries.put(key, new Entry(token, expiresAt));
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static String getKey(String tokenString) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(tokenString.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("board.auth.cache.size", this, TokenVerificationCache::size)
+                .description("Verified bearer tokens in the cache")
+                .register(registry);
+    }
+
+    private static class Entry {
+        private final AccessToken token;
+        private final long expiresAt;
+
+        private Entry(AccessToken token, long expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package board.api.metrics;
+
+import board.api.controller.BadRequestParameterException;
+import board.api.elastic.BoardPageParameters;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.rest.RestStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Times every BoardDao call as board.dao, with a latency histogram, the storage and the
+ * filters and sort of the call. Elasticsearch failures are counted as
+ * board.elasticsearch.errors, requests rejected by validation or by Elasticsearch as
+ * board.requests.rejected.
+ */
+@Aspect
+@Component
+public class BoardDaoMetrics {
+
+    private final MeterRegistry registry;
+    private final BoardMetricTags metricTags;
+
+    public BoardDaoMetrics(MeterRegistry registry, BoardMetricTags metricTags) {
+        this.registry = registry;
+        this.metricTags = metricTags;
+    }
+
+    @Around("execution(* board.api.dao.BoardDao.*(..))")
+    public Object timeBoardDao(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getName();
+        Tags tags = getTags(joinPoint.getArgs())
+                .and("method", method)
+                .and("storage", joinPoint.getTarget().getClass().getSimpleName());
+        Timer.Sample sample = Timer.start(registry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            countError(method, e);
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("board.dao")
+                    .description("Board storage calls")
+                    .tags(tags)
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+
+    @AfterThrowing(pointcut = "execution(* board.api.controller.*Controller.*(..))", throwing = "e")
+    public void countBadRequest(BadRequestParameterException e) {
+        registry.counter("board.requests.rejected", "reason", "bad_request").increment();
+    }
+
+    private void countError(String method, Throwable e) {
+        RestStatus status = e instanceof ElasticsearchException ? ((ElasticsearchException) e).status() : null;
+        registry.counter("board.elasticsearch.errors",
+                "method", method,
+                "exception", e.getClass().getSimpleName(),
+                "status", status == null ? "none" : String.valueOf(status.getStatus())).increment();
+        if (status == RestStatus.TOO_MANY_REQUESTS) {
+            registry.counter("board.requests.rejected", "reason", "elasticsearch").increment();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Tags getTags(Object[] args) {
+        BoardPageParameters pageParameters = null;
+        Map<String, String> searchFilters = null;
+        for (Object arg : args) {
+            if (arg instanceof BoardPageParameters) {
+                pageParameters = (BoardPageParameters) arg;
+            } else if (arg instanceof Map && searchFilters == null) {
+                searchFilters = (Map<String, String>) arg;
+            }
+        }
+        return metricTags.getTags(pageParameters, searchFilters);
+    }
+}
@@ -0,0 +1,81 @@
+package board.api.metrics;
+
+import board.api.elastic.BoardPageParameters;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Filter and sort tags of the board metrics. Tag values only come from the configured filter
+ * and field names, so request parameters can not grow the number of time series.
+ */
+@Component
+@PropertySource("classpath:board.properties")
+public class BoardMetricTags {
+
+    public static final String NONE = "none";
+    public static final String OTHER = "other";
+
+    @Value("${board.search.filters}")
+    private List<String> filterNames;
+    @Value("${board.response.fields}")
+    private List<String> responseFieldNames;
+
+    /**
+     * Tags of a listing request
+     *
+     * @param pageParameters - page parameters, null when the call has no page
+     * @param searchFilters - selected filters, null when the call has no filters
+     * @return filters, sort and mode tags
+     */
+    public Tags getTags(BoardPageParameters pageParameters, Map<String, String> searchFilters) {
+        return Tags.of(
+                Tag.of("filters", searchFilters == null ? NONE : getFiltersTag(searchFilters.keySet())),
+                Tag.of("sort", pageParameters == null ? NONE
+                        : getSortTag(pageParameters.getSortBy(), pageParameters.getSortOrder())),
+                Tag.of("mode", pageParameters == null ? NONE
+                        : pageParameters.getCursor() == null ? "page" : "cursor"));
+    }
+
+    /**
+     * Tags of a request from its parameters, the defaults of the listing are tagged as default
+     *
+     * @param parameters - request parameters
+     * @return filters, sort and mode tags
+     */
+    public Tags getTags(Map<String, String[]> parameters) {
+        String sortBy = getFirst(parameters, "sortBy");
+        String sortOrder = getFirst(parameters, "sortOrder");
+        return Tags.of(
+                Tag.of("filters", getFiltersTag(parameters.keySet())),
+                Tag.of("sort", sortBy == null && sortOrder == null ? "default"
+                        : getSortTag(sortBy == null ? "year" : sortBy, sortOrder == null ? "desc" : sortOrder)),
+                Tag.of("mode", parameters.containsKey("cursor") ? "cursor" : "page"));
+    }
+
+    private String getFiltersTag(Collection<String> names) {
+        String filters = filterNames.stream()
+                .filter(names::contains)
+                .collect(Collectors.joining(","));
+        return filters.isEmpty() ? NONE : filters;
+    }
+
+    private String getSortTag(String sortBy, String sortOrder) {
+        if (!responseFieldNames.contains(sortBy) || !("asc".equals(sortOrder) || "desc".equals(sortOrder))) {
+            return OTHER;
+        }
+        return sortBy + "_" + sortOrder;
+    }
+
+    private String getFirst(Map<String, String[]> parameters, String name) {
+        String[] values = parameters.get(name);
+        return values == null || values.length == 0 ? null : values[0];
+    }
+}
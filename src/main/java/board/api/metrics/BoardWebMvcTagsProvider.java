@@ -0,0 +1,29 @@
+package board.api.metrics;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.web.servlet.DefaultWebMvcTagsProvider;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Adds the filters, sort and mode of the request to the default http.server.requests tags
+ */
+@Component
+public class BoardWebMvcTagsProvider extends DefaultWebMvcTagsProvider {
+
+    private final BoardMetricTags metricTags;
+
+    public BoardWebMvcTagsProvider(BoardMetricTags metricTags) {
+        this.metricTags = metricTags;
+    }
+
+    @Override
+    public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response,
+                                 Object handler, Throwable exception) {
+        return Tags.concat(super.getTags(request, response, handler, exception),
+                metricTags.getTags(request.getParameterMap()));
+    }
+}
@@ -0,0 +1,55 @@
+package board.api.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.springframework.stereotype.Component;
+
+/**
+ * Connection pool usage of the Elasticsearch rest client and the number of nodes it sends
+ * requests to. The pool is saturated when utilization reaches 1 and requests become pending.
+ */
+@Component
+public class ElasticsearchPoolMetrics implements MeterBinder {
+
+    private final PoolingNHttpClientConnectionManager connectionManager;
+    private final RestHighLevelClient client;
+
+    public ElasticsearchPoolMetrics(PoolingNHttpClientConnectionManager connectionManager,
+                                    RestHighLevelClient client) {
+        this.connectionManager = connectionManager;
+        this.client = client;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("board.elasticsearch.pool.leased", connectionManager, cm -> cm.getTotalStats().getLeased())
+                .description("Connections in use")
+                .register(registry);
+        Gauge.builder("board.elasticsearch.pool.available", connectionManager, cm -> cm.getTotalStats().getAvailable())
+                .description("Idle connections")
+                .register(registry);
+        Gauge.builder("board.elasticsearch.pool.pending", connectionManager, cm -> cm.getTotalStats().getPending())
+                .description("Requests waiting for a connection")
+                .register(registry);
+        Gauge.builder("board.elasticsearch.pool.max", connectionManager, cm -> cm.getTotalStats().getMax())
+                .description("Maximum connections")
+                .register(registry);
+        Gauge.builder("board.elasticsearch.pool.utilization", connectionManager, cm -> getUtilization(cm.getTotalStats()))
+                .description("Share of the maximum connections in use")
+                .register(registry);
+        Gauge.builder("board.elasticsearch.pool.routes", connectionManager, cm -> cm.getRoutes().size())
+                .description("Nodes with pooled connections")
+                .register(registry);
+        Gauge.builder("board.elasticsearch.nodes", client, c -> c.getLowLevelClient().getNodes().size())
+                .description("Nodes requests are sent to")
+                .register(registry);
+    }
+
+    private static double getUtilization(PoolStats stats) {
+        return stats.getMax() == 0 ? 0 : (double) stats.getLeased() / stats.getMax();
+    }
+}
@@ -1,7 +1,9 @@
 package board.api.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.elasticsearch.annotations.Document;
 
 import java.util.List;
@@ -22,4 +24,10 @@ public class Board {
     private String bend;
     private String shape;
     private String details;
+    /**
+     * Version of the stored document, set by the storage on reads. Not part of the source.
+     */
+    @JsonIgnore
+    @Transient
+    private String version;
 }
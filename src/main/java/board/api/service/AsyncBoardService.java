@@ -0,0 +1,47 @@
+package board.api.service;
+
+import board.api.cache.RequestCoalescer;
+import board.api.dao.AsyncBoardDao;
+import board.api.elastic.BoardFilter;
+import board.api.elastic.BoardPageParameters;
+import board.api.elastic.BoardResponse;
+import board.api.model.Board;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@Service
+@ConditionalOnProperty(name = "board.async.enabled", havingValue = "true")
+public class AsyncBoardService {
+
+    private final AsyncBoardDao asyncBoardDao;
+    private final RequestCoalescer requestCoalescer;
+
+    public AsyncBoardService(AsyncBoardDao asyncBoardDao, RequestCoalescer requestCoalescer) {
+        this.asyncBoardDao = asyncBoardDao;
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    public CompletableFuture<List<BoardFilter>> getFilters() {
+        return asyncBoardDao.findFilters();
+    }
+
+    public CompletableFuture<Board> getBoardById(String id) {
+        return asyncBoardDao.findBoardById(id);
+    }
+
+    public CompletableFuture<BoardResponse> getBoardsByFilters(BoardPageParameters pageParameters,
+                                                               Map<String, String> searchFilters) {
+        return requestCoalescer.coalesceAsync(Arrays.asList("findBoards", pageParameters, searchFilters),
+                () -> asyncBoardDao.findBoards(pageParameters, searchFilters));
+    }
+
+    public CompletableFuture<BoardResponse> searchBoards(BoardPageParameters pageParameters, String q) {
+        return requestCoalescer.coalesceAsync(Arrays.asList("searchBoards", pageParameters, q),
+                () -> asyncBoardDao.searchBoards(pageParameters, q));
+    }
+}
@@ -1,16 +1,29 @@
 package board.api.service;
 
+import board.api.cache.BoardCache;
+import board.api.cache.BoardCacheStats;
+import board.api.cache.FilterCache;
+import board.api.cache.RequestCoalescer;
 import board.api.dao.BoardDao;
+import board.api.elastic.BoardBulkItemResult;
+import board.api.elastic.BoardBulkOperation;
 import board.api.elastic.BoardFilter;
+import board.api.elastic.BoardFit;
+import board.api.elastic.BoardLookup;
 import board.api.elastic.BoardPageParameters;
 import board.api.elastic.BoardResponse;
+import board.api.elastic.IngestReport;
 import board.api.model.Board;
+import org.elasticsearch.action.support.WriteRequest;
 import org.elasticsearch.action.update.UpdateResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.stereotype.Service;
 
+import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -19,45 +32,123 @@ import java.util.Map;
 public class BoardService {
 
     private final BoardDao boardDao;
+    private final FilterCache filterCache;
+    private final BoardCache boardCache;
+    private final RequestCoalescer requestCoalescer;
 
     @Autowired
-    public BoardService(BoardDao boardDao) {
+    public BoardService(BoardDao boardDao, FilterCache filterCache, BoardCache boardCache,
+                        RequestCoalescer requestCoalescer) {
         this.boardDao = boardDao;
+        this.filterCache = filterCache;
+        this.boardCache = boardCache;
+        this.requestCoalescer = requestCoalescer;
     }
 
     public List<BoardFilter> getFilters () {
-        return boardDao.findFilters();
+        return filterCache.getFilters();
     }
 
     public Board getBoardById (String id) {
-        return boardDao.findBoardById(id);
+        return boardCache.get(id, boardDao::findBoardById);
+    }
+
+    public BoardCacheStats getBoardCacheStats() {
+        return boardCache.getStats();
+    }
+
+    public List<BoardLookup> getBoardsByIds(List<String> ids) {
+        return boardDao.findBoardsByIds(ids);
     }
 
     public boolean removeBoardById (String id) {
-        return boardDao.removeBoard(id);
+        try {
+            return boardDao.removeBoard(id);
+        } finally {
+            boardCache.evict(id);
+            invalidateCatalogue();
+        }
     }
 
     public String addBoard (Board board) {
-        return boardDao.createBoard(board);
+        try {
+            return boardDao.createBoard(board);
+        } finally {
+            invalidateCatalogue();
+        }
     }
 
     public UpdateResponse updateBoard (String id, HashMap<String, Object> body) {
-        return boardDao.updateBoard(id, body);
+        try {
+            return boardDao.updateBoard(id, body);
+        } finally {
+            boardCache.evict(id);
+            invalidateCatalogue();
+        }
+    }
+
+    public List<BoardBulkItemResult> bulkBoards(List<BoardBulkOperation> operations,
+                                                WriteRequest.RefreshPolicy refreshPolicy) {
+        try {
+            return boardDao.bulkBoards(operations, refreshPolicy);
+        } finally {
+            operations.forEach(operation -> boardCache.evict(operation.getId()));
+            invalidateCatalogue();
+        }
     }
 
     public boolean addRandomBoards(int num) {
-        return boardDao.addRandomBoards(num);
+        try {
+            return boardDao.addRandomBoards(num);
+        } finally {
+            invalidateCatalogue();
+        }
+    }
+
+    public IngestReport importBoards(Iterator<Board> boards) {
+        try {
+            return boardDao.importBoards(boards);
+        } finally {
+            boardCache.clear();
+            invalidateCatalogue();
+        }
     }
 
     public boolean deleteAllBoards() {
-        return boardDao.deleteAllBoards();
+        try {
+            return boardDao.deleteAllBoards();
+        } finally {
+            boardCache.clear();
+            invalidateCatalogue();
+        }
+    }
+
+    private void invalidateCatalogue() {
+        filterCache.invalidate();
     }
 
+    /**
+     * Get one page of boards, identical concurrent requests share one query
+     *
+     * @param pageParameters - page parameters
+     * @param searchFilters - selected filters
+     * @return board response
+     */
     public BoardResponse getBoardsByFilters(BoardPageParameters pageParameters, Map<String, String> searchFilters) {
-        return boardDao.findBoards(pageParameters, searchFilters);
+        return requestCoalescer.coalesce(Arrays.asList("findBoards", pageParameters, searchFilters),
+                () -> boardDao.findBoards(pageParameters, searchFilters));
+    }
+
+    public List<BoardFit> getFittingBoards(double[] values, int k) {
+        return boardDao.findFittingBoards(values, k);
+    }
+
+    public void exportBoards(Map<String, String> searchFilters, int slices, OutputStream out) {
+        boardDao.exportBoards(searchFilters, slices, out);
     }
 
     public BoardResponse searchBoars(BoardPageParameters pageParameters, String q) {
-        return boardDao.searchBoards(pageParameters, q);
+        return requestCoalescer.coalesce(Arrays.asList("searchBoards", pageParameters, q),
+                () -> boardDao.searchBoards(pageParameters, q));
     }
 }
@@ -0,0 +1,274 @@
+package board.api.util;
+
+import board.api.model.Board;
+import board.api.model.Feature;
+import board.api.model.Spec;
+import board.api.model.Stance;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.javafaker.Faker;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Seeded board generator for load fixtures. Board n of a seed is generated from its own
+ * random stream derived from the seed and n, so any range of boards can be generated on any
+ * number of threads and the same seed always gives the same boards, ids included. The
+ * property lists of board.properties are parsed once, when the generator is created.
+ * <p>
+ * Writes fixture files from the command line:
+ * {@code BoardGenerator <file> <count> [seed] [ndjson|bulk] [index]}
+ */
+public class BoardGenerator {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final int CHUNK_SIZE = 1000;
+
+    private final long seed;
+    private final String[] sizes;
+    private final int[] lengths;
+    private final String[] ridingLevels;
+    private final String[] bends;
+    private final String[] shapes;
+    private final String[] terrains;
+    private final double[] stanceMin;
+    private final double[] stanceMax;
+    private final double[] stanceSetBack;
+    private final ThreadLocal<Source> sources = ThreadLocal.withInitial(Source::new);
+
+    public BoardGenerator(long seed, List<String> sizes, List<String> ridingLevels, List<String> bends,
+                          List<String> shapes, List<String> terrains, List<String> stanceMin,
+                          List<String> stanceMax, List<String> stanceSetBack) {
+        this.seed = seed;
+        this.sizes = sizes.toArray(new String[0]);
+        this.lengths = sizes.stream().mapToInt(size -> Integer.parseInt(size.substring(0, 3))).toArray();
+        this.ridingLevels = ridingLevels.toArray(new String[0]);
+        this.bends = bends.toArray(new String[0]);
+        this.shapes = shapes.toArray(new String[0]);
+        this.terrains = terrains.toArray(new String[0]);
+        this.stanceMin = stanceMin.stream().mapToDouble(Double::parseDouble).toArray();
+        this.stanceMax = stanceMax.stream().mapToDouble(Double::parseDouble).toArray();
+        this.stanceSetBack = stanceSetBack.stream().mapToDouble(Double::parseDouble).toArray();
+    }
+
+    /**
+     * Generator configured from the board.* lists of a board.properties file
+     *
+     * @param properties - board properties
+     * @param seed - random seed
+     * @return generator
+     */
+    public static BoardGenerator fromProperties(Properties properties, long seed) {
+        return new BoardGenerator(seed,
+                getList(properties, "board.size"),
+                getList(properties, "board.riding.level"),
+                getList(properties, "board.bend"),
+                getList(properties, "board.shape"),
+                getList(properties, "board.terrain"),
+                getList(properties, "board.stance.min"),
+                getList(properties, "board.stance.max"),
+                getList(properties, "board.stance.setBack"));
+    }
+
+    private static List<String> getList(Properties properties, String key) {
+        return Arrays.asList(StringUtils.commaDelimitedListToStringArray(properties.getProperty(key)));
+    }
+
+    /**
+     * Board number n of the seed
+     *
+     * @param n - board number
+     * @return board
+     */
+    public Board getBoard(long n) {
+        Source source = sources.get();
+        Random random = source.random;
+        random.setSeed(mix(seed + n * GOLDEN_GAMMA));
+        Faker faker = source.faker;
+        Board board = new Board();
+        board.setId(new UUID(random.nextLong() & 0xFFFFFFFFFFFF0FFFL | 0x4000L,
+                random.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L).toString());
+        board.setYear(getIntInRange(random, 2010, 2020));
+        board.setName(faker.animal().name());
+        board.setCode(faker.code().imei());
+        int size = random.nextInt(sizes.length);
+        board.setSize(sizes[size]);
+        board.setSpec(getSpec(random, lengths[size]));
+        board.setFeatures(getFeatures(random, faker));
+        board.setTerrain(terrains[random.nextInt(terrains.length)]);
+        board.setRidingLevel(ridingLevels[random.nextInt(ridingLevels.length)]);
+        board.setBend(bends[random.nextInt(bends.length)]);
+        board.setShape(shapes[random.nextInt(shapes.length)]);
+        board.setDetails(faker.shakespeare().romeoAndJulietQuote());
+        return board;
+    }
+
+    /**
+     * Boards from..from+count-1, generated in parallel
+     *
+     * @param from - first board number
+     * @param count - number of boards
+     * @return boards in board number order
+     */
+    public Stream<Board> getBoards(long from, long count) {
+        return LongStream.range(from, from + count)
+                .parallel()
+                .mapToObj(this::getBoard);
+    }
+
+    /**
+     * Write boards 0..count-1 to a file, one JSON board per line. In bulk format every board
+     * is preceded by its index action, so the file can be posted to _bulk as is. Chunks of
+     * boards are generated and serialized on all cores and written in board number order.
+     *
+     * @param file - output file
+     * @param count - number of boards
+     * @param bulkIndex - index of the bulk actions, null for plain NDJSON
+     * @param objectMapper - board serializer
+     */
+    public void write(Path file, long count, String bulkIndex, ObjectMapper objectMapper) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(Board.class);
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            Deque<Future<byte[]>> chunks = new ArrayDeque<>();
+            for (long from = 0; from < count; from += CHUNK_SIZE) {
+                long chunkFrom = from;
+                long chunkTo = Math.min(from + CHUNK_SIZE, count);
+                chunks.add(executor.submit(() -> serialize(chunkFrom, chunkTo, bulkIndex, writer)));
+                if (chunks.size() >= threads * 2) {
+                    out.write(get(chunks.poll()));
+                }
+            }
+            while (!chunks.isEmpty()) {
+                out.write(get(chunks.poll()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private byte[] serialize(long from, long to, String bulkIndex, ObjectWriter writer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (long n = from; n < to; n++) {
+            Board board = getBoard(n);
+            if (bulkIndex != null) {
+                out.write(("{\"index\":{\"_index\":\"" + bulkIndex + "\",\"_type\":\"_doc\",\"_id\":\""
+                        + board.getId() + "\"}}\n").getBytes(StandardCharsets.UTF_8));
+            }
+            out.write(writer.writeValueAsBytes(board));
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] get(Future<byte[]> chunk) throws IOException {
+        try {
+            return chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating boards", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    private Spec getSpec(Random random, int length) {
+        Spec spec = new Spec();
+        spec.setContactLength(length - 40);
+        spec.setSideCut(getDoubleInRange(random, 7.0, 9.0));
+        spec.setWaistWidth(getDoubleInRange(random, 17.0, 24.5));
+        spec.setNoseWidth(getSimpleDouble(length / 5.13));
+        spec.setTailWidth(getSimpleDouble(spec.getNoseWidth() / 1.0555));
+        spec.setWeightRange(length - getIntInRange(random, 70, 84));
+        spec.setFlex(getIntInRange(random, 1, 10));
+        Stance stance = new Stance();
+        stance.setMin(stanceMin[random.nextInt(stanceMin.length)]);
+        stance.setMax(stanceMax[random.nextInt(stanceMax.length)]);
+        stance.setSetBack(stanceSetBack[random.nextInt(stanceSetBack.length)]);
+        spec.setStance(stance);
+        return spec;
+    }
+
+    private static List<Feature> getFeatures(Random random, Faker faker) {
+        int count = random.nextInt(4);
+        List<Feature> features = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Feature feature = new Feature();
+            feature.setType(faker.witcher().location());
+            feature.setName(faker.witcher().monster());
+            feature.setDescription(faker.dune().quote());
+            features.add(feature);
+        }
+        return features;
+    }
+
+    private static double getDoubleInRange(Random random, double min, double max) {
+        return getSimpleDouble(min + (max - min) * random.nextDouble());
+    }
+
+    private static double getSimpleDouble(double value) {
+        return Math.floor(value * 10) / 10;
+    }
+
+    private static int getIntInRange(Random random, int min, int max) {
+        return random.nextInt(max - min + 1) + min;
+    }
+
+    /**
+     * SplitMix64 finalizer, spreads neighbouring board numbers over unrelated seeds
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Random and faker of one thread, the faker draws from the random
+     */
+    private static class Source {
+        private final Random random = new Random();
+        private final Faker faker = new Faker(random);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BoardGenerator <file> <count> [seed] [ndjson|bulk] [index]");
+            System.exit(1);
+        }
+        Path file = Paths.get(args[0]);
+        long count = Long.parseLong(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+        boolean bulk = args.length > 3 && "bulk".equals(args[3]);
+        String index = args.length > 4 ? args[4] : "snowboard";
+        Properties properties = PropertiesLoaderUtils.loadProperties(new ClassPathResource("board.properties"));
+        long startedAt = System.currentTimeMillis();
+        fromProperties(properties, seed).write(file, count, bulk ? index : null, new ObjectMapper());
+        long tookMs = Math.max(System.currentTimeMillis() - startedAt, 1);
+        System.out.printf("Wrote %d boards to %s in %d ms (%.0f boards/s)%n", count, file, tookMs, count * 1000.0 / tookMs);
+    }
+}
@@ -18,8 +18,8 @@ import java.util.stream.Stream;
 @PropertySource("classpath:board.properties")
 public class BoardUtil {
 
-    private final Faker faker = new Faker();
     private final Random random = new Random();
+    private final Faker faker = new Faker(random);
     @Value("${board.size}")
     private List<String> sizes;
     @Value("${board.riding.level}")
@@ -37,6 +37,27 @@ public class BoardUtil {
     @Value("${board.stance.setBack}")
     private List<String> stanceSetBack;
 
+    /**
+     * Reseed the generator, so the same seed produces the same boards (ids aside)
+     *
+     * @param seed - random seed
+     */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /**
+     * Seeded generator over the same property lists, for fixtures that must be reproducible
+     * or generated on several threads
+     *
+     * @param seed - random seed
+     * @return generator
+     */
+    public BoardGenerator getGenerator(long seed) {
+        return new BoardGenerator(seed, sizes, ridingLevels, bends, shapes, terrains,
+                stanceMin, stanceMax, stanceSetBack);
+    }
+
     public Board getRandomBoard() {
         Board board = new Board();
         board.setId(UUID.randomUUID().toString());
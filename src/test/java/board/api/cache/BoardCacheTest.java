@@ -0,0 +1,90 @@
+package board.api.cache;
+
+import board.api.model.Board;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public class BoardCacheTest extends TestCase {
+
+    private BoardCache boardCache;
+    private AtomicInteger loads;
+    private Function<String, Board> loader;
+
+    @Override
+    protected void setUp() {
+        boardCache = new BoardCache();
+        ReflectionTestUtils.setField(boardCache, "maxEntries", 2);
+        ReflectionTestUtils.setField(boardCache, "maxWeightMb", 1L);
+        ReflectionTestUtils.setField(boardCache, "ttlMs", 60000L);
+        ReflectionTestUtils.setField(boardCache, "negativeTtlMs", 60000L);
+        loads = new AtomicInteger();
+        loader = id -> {
+            loads.incrementAndGet();
+            if (id.startsWith("missing")) {
+                return null;
+            }
+            Board board = new Board();
+            board.setId(id);
+            return board;
+        };
+    }
+
+    @Test
+    public void testBoardIsLoadedOnce() {
+        Board first = boardCache.get("b1", loader);
+        Board second = boardCache.get("b1", loader);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, boardCache.getStats().getHits());
+        assertEquals(1, boardCache.getStats().getMisses());
+    }
+
+    @Test
+    public void testMissingBoardIsRemembered() {
+        assertNull(boardCache.get("missing", loader));
+        assertNull(boardCache.get("missing", loader));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedBoardIsEvicted() {
+        boardCache.get("b1", loader);
+        boardCache.get("b2", loader);
+        boardCache.get("b1", loader);
+        boardCache.get("b3", loader);
+        boardCache.get("b1", loader);
+        boardCache.get("b2", loader);
+
+        assertEquals(4, loads.get());
+        assertEquals(2, boardCache.getStats().getEvictions());
+        assertEquals(2, boardCache.getStats().getSize());
+    }
+
+    @Test
+    public void testEvictedBoardIsReloaded() {
+        boardCache.get("b1", loader);
+        boardCache.evict("b1");
+        boardCache.get("b1", loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(0, boardCache.getStats().getEvictions());
+    }
+
+    @Test
+    public void testLoadOverlappingAnEvictionIsNotCached() {
+        Board stale = boardCache.get("b1", id -> {
+            boardCache.evict(id);
+            return loader.apply(id);
+        });
+        Board fresh = boardCache.get("b1", loader);
+
+        assertNotSame(stale, fresh);
+        assertEquals(2, loads.get());
+    }
+}
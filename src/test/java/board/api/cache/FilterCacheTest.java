@@ -0,0 +1,61 @@
+package board.api.cache;
+
+import board.api.dao.BoardDao;
+import board.api.elastic.BoardFilter;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+public class FilterCacheTest extends TestCase {
+
+    private BoardDao boardDao;
+    private FilterCache filterCache;
+
+    @Override
+    protected void setUp() {
+        boardDao = mock(BoardDao.class);
+        when(boardDao.findFilters()).thenReturn(Collections.singletonList(
+                new BoardFilter("terrain", Collections.singletonMap("Powder", 1L))));
+        filterCache = new FilterCache(boardDao);
+        ReflectionTestUtils.setField(filterCache, "refreshAfterMs", 60000L);
+        ReflectionTestUtils.setField(filterCache, "maxStalenessMs", 120000L);
+    }
+
+    @Override
+    protected void tearDown() {
+        filterCache.shutdown();
+    }
+
+    @Test
+    public void testFiltersAreLoadedOnce() {
+        List<BoardFilter> first = filterCache.getFilters();
+        List<BoardFilter> second = filterCache.getFilters();
+
+        assertSame(first, second);
+        verify(boardDao, times(1)).findFilters();
+    }
+
+    @Test
+    public void testInvalidateReloadsFilters() {
+        filterCache.getFilters();
+        filterCache.invalidate();
+        filterCache.getFilters();
+
+        verify(boardDao, times(2)).findFilters();
+    }
+
+    @Test
+    public void testStaleFiltersAreReloaded() {
+        ReflectionTestUtils.setField(filterCache, "refreshAfterMs", 0L);
+        ReflectionTestUtils.setField(filterCache, "maxStalenessMs", 0L);
+        filterCache.getFilters();
+        filterCache.getFilters();
+
+        verify(boardDao, times(2)).findFilters();
+    }
+}
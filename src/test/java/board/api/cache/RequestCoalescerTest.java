@@ -0,0 +1,94 @@
+package board.api.cache;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RequestCoalescerTest extends TestCase {
+
+    private RequestCoalescer requestCoalescer;
+    private ExecutorService executor;
+
+    @Override
+    protected void setUp() {
+        requestCoalescer = new RequestCoalescer();
+        ReflectionTestUtils.setField(requestCoalescer, "enabled", true);
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @Override
+    protected void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneQuery() throws Exception {
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> requestCoalescer.coalesce("page", () -> {
+            queries.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "boards";
+        }));
+        started.await(5, TimeUnit.SECONDS);
+        Future<String> follower = executor.submit(() -> requestCoalescer.coalesce("page", () -> {
+            queries.incrementAndGet();
+            return "other";
+        }));
+        while (requestCoalescer.getCollapsed() == 0) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        assertEquals("boards", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("boards", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, queries.get());
+        assertEquals("again", requestCoalescer.coalesce("page", () -> "again"));
+        assertEquals(2, requestCoalescer.getExecuted());
+    }
+
+    @Test
+    public void testFailureReachesWaitingCallers() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> requestCoalescer.<String>coalesce("page", () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("es down");
+        }));
+        started.await(5, TimeUnit.SECONDS);
+        Future<String> follower = executor.submit(() -> requestCoalescer.coalesce("page", () -> "boards"));
+        while (requestCoalescer.getCollapsed() == 0) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        for (Future<String> future : Arrays.asList(leader, follower)) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertEquals("es down", e.getCause().getMessage());
+            }
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
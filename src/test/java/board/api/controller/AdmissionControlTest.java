@@ -0,0 +1,150 @@
+package board.api.controller;
+
+import board.api.elastic.BoardFilter;
+import board.api.service.AsyncBoardService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class AdmissionControlTest extends TestCase {
+
+    private SimpleMeterRegistry registry;
+    private AdmissionControl admissionControl;
+
+    @Override
+    protected void setUp() {
+        MockEnvironment environment = new MockEnvironment().withProperty("board.admission.min.limit", "1");
+        for (AdmissionGroup group : AdmissionGroup.values()) {
+            environment.setProperty("board.admission." + group.getName() + ".limit", "1");
+            environment.setProperty("board.admission." + group.getName() + ".latency.ms", "1000");
+        }
+        registry = new SimpleMeterRegistry();
+        admissionControl = new AdmissionControl(environment, registry);
+        ReflectionTestUtils.setField(admissionControl, "retryAfterSeconds", 2L);
+    }
+
+    @Test
+    public void testRequestsOverTheGroupLimitAreRejected() throws Exception {
+        HandlerMethod search = getHandler("search");
+        MockHttpServletRequest admitted = new MockHttpServletRequest();
+        MockHttpServletResponse admittedResponse = new MockHttpServletResponse();
+        assertTrue(admissionControl.preHandle(admitted, admittedResponse, search));
+        assertTrue(admissionControl.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), getHandler("read")));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertFalse(admissionControl.preHandle(new MockHttpServletRequest(), rejected, search));
+        assertEquals(429, rejected.getStatus());
+        assertEquals("2", rejected.getHeader("Retry-After"));
+        assertEquals(1.0, registry.counter("board.requests.rejected", "reason", "overload").count());
+
+        admissionControl.afterCompletion(admitted, admittedResponse, search, null);
+        assertTrue(admissionControl.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), search));
+    }
+
+    @Test
+    public void testLimitShrinksOnSlowRequestsAndGrowsOnFastOnes() {
+        AdaptiveLimit limit = new AdaptiveLimit(1, 10, TimeUnit.MILLISECONDS.toNanos(100));
+        limit.tryAcquire();
+        limit.release(TimeUnit.SECONDS.toNanos(1), false);
+        assertEquals(9, limit.getLimit());
+        limit.tryAcquire();
+        limit.release(TimeUnit.SECONDS.toNanos(1), false);
+        assertEquals("Slow requests of one burst count once", 9, limit.getLimit());
+
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 5; j++) {
+                assertTrue(limit.tryAcquire());
+            }
+            limit.release(TimeUnit.MILLISECONDS.toNanos(1), false);
+            for (int j = 0; j < 4; j++) {
+                limit.release(TimeUnit.MILLISECONDS.toNanos(1), false);
+            }
+        }
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    public void testStreamLimitDoesNotAdapt() throws Exception {
+        MockEnvironment environment = new MockEnvironment().withProperty("board.admission.min.limit", "1");
+        for (AdmissionGroup group : AdmissionGroup.values()) {
+            environment.setProperty("board.admission." + group.getName() + ".limit", "4");
+            environment.setProperty("board.admission." + group.getName() + ".latency.ms", "1000");
+        }
+        admissionControl = new AdmissionControl(environment, registry);
+        admissionControl.bindTo(registry);
+
+        for (String name : new String[]{"bulk", "export"}) {
+            HandlerMethod handler = getHandler(name);
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            assertTrue(admissionControl.preHandle(request, response, handler));
+            admissionControl.afterCompletion(request, response, handler, new IllegalStateException("es down"));
+        }
+
+        assertEquals(3.0, registry.get("board.admission.limit").tag("group", "bulk").gauge().value());
+        assertEquals(4.0, registry.get("board.admission.limit").tag("group", "stream").gauge().value());
+    }
+
+    @Test
+    public void testAsyncRequestsHoldTheirPermitUntilCompleted() throws Exception {
+        AsyncBoardService asyncBoardService = mock(AsyncBoardService.class);
+        CompletableFuture<List<BoardFilter>> filters = new CompletableFuture<>();
+        when(asyncBoardService.getFilters()).thenReturn(filters);
+        MockMvc mockMvc = MockMvcBuilders
+                .standaloneSetup(new AsyncBoardController(asyncBoardService, new BoardRequestParameters()))
+                .addInterceptors(admissionControl)
+                .build();
+
+        MvcResult admitted = mockMvc.perform(get("/async/boards/filters")).andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(get("/async/boards/filters"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+
+        filters.complete(Collections.emptyList());
+        mockMvc.perform(asyncDispatch(admitted)).andExpect(status().isOk());
+        mockMvc.perform(get("/async/boards/filters")).andExpect(request().asyncStarted());
+    }
+
+    private HandlerMethod getHandler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Handlers(), Handlers.class.getMethod(name));
+    }
+
+    public static class Handlers {
+        @Admission(AdmissionGroup.SEARCH)
+        public void search() {
+        }
+
+        @Admission(AdmissionGroup.READ)
+        public void read() {
+        }
+
+        @Admission(AdmissionGroup.BULK)
+        public void bulk() {
+        }
+
+        @Admission(AdmissionGroup.STREAM)
+        public void export() {
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package board.api.controller;
+
+import board.api.elastic.BoardFilter;
+import board.api.elastic.IngestReport;
+import board.api.model.Board;
+import board.api.service.BoardService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import junit.framework.TestCase;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BoardControllerTest extends TestCase {
+
+    private BoardService boardService;
+    private BoardController boardController;
+
+    @Override
+    protected void setUp() {
+        boardService = mock(BoardService.class);
+        BoardRequestParameters requestParameters = new BoardRequestParameters();
+        ReflectionTestUtils.setField(requestParameters, "filterNames", Collections.singletonList("terrain"));
+        ReflectionTestUtils.setField(requestParameters, "rangeNames", Collections.singletonList("year"));
+        boardController = new BoardController(boardService, new ObjectMapper(), requestParameters);
+    }
+
+    @Test
+    public void testMalformedImportLineStopsTheImportWithItsReport() throws Exception {
+        when(boardService.importBoards(any())).thenAnswer(invocation -> {
+            Iterator<Board> boards = invocation.getArgument(0);
+            IngestReport report = new IngestReport();
+            boards.forEachRemaining(board -> report.setIndexed(report.getIndexed() + 1));
+            return report;
+        });
+
+        ResponseEntity<ResultResponse<IngestReport>> response =
+                boardController.importBoards(getBody("{\"id\":\"1\"}\n{\"id\":\n{\"id\":\"3\"}"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        IngestReport report = response.getBody().getResult();
+        assertEquals(1, report.getIndexed());
+        assertTrue(report.getError(), report.getError().startsWith("Bad board in import body"));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(boardController)
+                .setControllerAdvice(new BoardExceptionHandler())
+                .build();
+        mockMvc.perform(post("/boards/import").contentType("application/x-ndjson").content("{\"id\":"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testExportRunsWithItsOwnAsyncTimeout() throws Exception {
+        ReflectionTestUtils.setField(boardController, "maxExportSlices", 8);
+        ReflectionTestUtils.setField(boardController, "exportTimeoutMs", 3600000L);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, new MockHttpServletResponse()));
+
+        boardController.exportBoards(new HashMap<>(), request);
+        asyncManager.startCallableProcessing(() -> null);
+
+        assertEquals(3600000L, request.getAsyncContext().getTimeout());
+    }
+
+    @Test
+    public void testRejectedWriteIsTooManyRequestsWithoutShrinkingTheLimit() throws Exception {
+        when(boardService.updateBoard(eq("b1"), any())).thenThrow(
+                new ElasticsearchStatusException("Board write queue is full", RestStatus.TOO_MANY_REQUESTS));
+        BoardExceptionHandler exceptionHandler = new BoardExceptionHandler();
+        ReflectionTestUtils.setField(exceptionHandler, "retryAfterSeconds", 3L);
+        MockEnvironment environment = new MockEnvironment().withProperty("board.admission.min.limit", "1");
+        for (AdmissionGroup group : AdmissionGroup.values()) {
+            environment.setProperty("board.admission." + group.getName() + ".limit", "10");
+            environment.setProperty("board.admission." + group.getName() + ".latency.ms", "1000");
+        }
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionControl admissionControl = new AdmissionControl(environment, registry);
+        admissionControl.bindTo(registry);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(boardController)
+                .setControllerAdvice(exceptionHandler)
+                .addInterceptors(admissionControl)
+                .build();
+
+        mockMvc.perform(put("/boards/b1").contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"Owl\"}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"));
+        assertEquals(10.0, registry.get("board.admission.limit").tag("group", "write").gauge().value());
+    }
+
+    @Test
+    public void testFitIsUnavailableUntilTheIndexIsLoaded() throws Exception {
+        ReflectionTestUtils.setField(boardController, "defaultFitSize", 10);
+        ReflectionTestUtils.setField(boardController, "maxFitSize", 100);
+        when(boardService.getFittingBoards(any(), anyInt())).thenThrow(
+                new ElasticsearchStatusException("Fit index is not available", RestStatus.SERVICE_UNAVAILABLE));
+        BoardExceptionHandler exceptionHandler = new BoardExceptionHandler();
+        ReflectionTestUtils.setField(exceptionHandler, "retryAfterSeconds", 3L);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(boardController).setControllerAdvice(exceptionHandler).build();
+
+        mockMvc.perform(get("/boards/fit").param("weight", "80"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"));
+    }
+
+    @Test
+    public void testCatalogueETagIsTheHashOfTheBody() throws Exception {
+        ReflectionTestUtils.setField(boardController, "catalogueMaxAgeSeconds", 0L);
+        when(boardService.getFilters()).thenReturn(Collections.emptyList());
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(boardController)
+                .addFilters(new WebConfig(null).catalogueEtagFilter().getFilter())
+                .build();
+
+        String eTag = mockMvc.perform(get("/boards/filters"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertTrue(eTag, eTag.startsWith("W/\""));
+        mockMvc.perform(get("/boards/filters").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        when(boardService.getFilters()).thenReturn(Collections.singletonList(new BoardFilter("terrain", null, "")));
+        mockMvc.perform(get("/boards/filters").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testNonNumericPageIsABadRequest() {
+        try {
+            new BoardRequestParameters().getBoardPageParameters(Collections.singletonMap("pageSize", "abc"));
+            fail("pageSize=abc must be rejected");
+        } catch (BadRequestParameterException e) {
+            assertEquals("Bad request parameter: pageSize", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testNonNumericSlicesIsABadRequest() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(boardController)
+                .setControllerAdvice(new BoardExceptionHandler())
+                .build();
+
+        mockMvc.perform(get("/boards/export").param("slices", "abc"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static InputStream getBody(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
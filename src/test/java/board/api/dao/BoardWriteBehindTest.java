@@ -0,0 +1,192 @@
+package board.api.dao;
+
+import junit.framework.TestCase;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.index.engine.DocumentMissingException;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class BoardWriteBehindTest extends TestCase {
+
+    private final List<BulkRequest> bulkRequests = new CopyOnWriteArrayList<>();
+    private final CountDownLatch released = new CountDownLatch(1);
+    private volatile boolean blocking;
+    private BoardWriteBehind writeBehind;
+
+    @Override
+    protected void setUp() {
+        writeBehind = new BoardWriteBehind(null) {
+            @Override
+            BulkResponse execute(BulkRequest request) {
+                bulkRequests.add(request);
+                if (blocking) {
+                    awaitRelease();
+                }
+                BulkItemResponse[] items = request.requests().stream()
+                        .map(BoardWriteBehindTest.this::getItem)
+                        .toArray(BulkItemResponse[]::new);
+                return new BulkResponse(items, 1);
+            }
+        };
+    }
+
+    @Override
+    protected void tearDown() throws InterruptedException {
+        released.countDown();
+        writeBehind.shutdown();
+    }
+
+    @Test
+    public void testWritesInOneWindowShareABulkRequest() throws Exception {
+        start(10, 3, 1000);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() ->
+                writeBehind.write(new IndexRequest("snowboard", "_doc", "b1")).getId());
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() ->
+                writeBehind.write(new IndexRequest("snowboard", "_doc", "b2")).getId());
+        CompletableFuture<Throwable> missing = CompletableFuture.supplyAsync(() -> {
+            try {
+                writeBehind.write(new UpdateRequest("snowboard", "_doc", "b3"));
+                return null;
+            } catch (ElasticsearchStatusException e) {
+                return e;
+            }
+        });
+
+        assertEquals("b1", first.get(5, TimeUnit.SECONDS));
+        assertEquals("b2", second.get(5, TimeUnit.SECONDS));
+        assertEquals(RestStatus.NOT_FOUND, ((ElasticsearchStatusException) missing.get(5, TimeUnit.SECONDS)).status());
+        assertEquals(1, bulkRequests.size());
+        assertEquals(3, bulkRequests.get(0).numberOfActions());
+    }
+
+    @Test
+    public void testFullQueueRejectsWrites() throws Exception {
+        blocking = true;
+        start(1, 1, 0);
+        CompletableFuture.runAsync(() -> writeBehind.write(new IndexRequest("snowboard", "_doc", "b1")));
+        while (bulkRequests.isEmpty()) {
+            Thread.sleep(10);
+        }
+        CompletableFuture.runAsync(() -> writeBehind.write(new IndexRequest("snowboard", "_doc", "b2")));
+        while (((Queue<?>) ReflectionTestUtils.getField(writeBehind, "queue")).isEmpty()) {
+            Thread.sleep(10);
+        }
+
+        try {
+            writeBehind.write(new IndexRequest("snowboard", "_doc", "b3"));
+            fail("Write should be rejected");
+        } catch (ElasticsearchStatusException e) {
+            assertEquals(RestStatus.TOO_MANY_REQUESTS, e.status());
+        }
+    }
+
+    @Test
+    public void testWritesStillQueuedAtShutdownFail() throws Exception {
+        blocking = true;
+        start(10, 1, 0);
+        CompletableFuture.runAsync(() -> writeBehind.write(new IndexRequest("snowboard", "_doc", "b1")));
+        while (bulkRequests.isEmpty()) {
+            Thread.sleep(10);
+        }
+        CompletableFuture<Throwable> queued = CompletableFuture.supplyAsync(() -> {
+            try {
+                writeBehind.write(new IndexRequest("snowboard", "_doc", "b2"));
+                return null;
+            } catch (ElasticsearchStatusException e) {
+                return e;
+            }
+        });
+        while (((Queue<?>) ReflectionTestUtils.getField(writeBehind, "queue")).isEmpty()) {
+            Thread.sleep(10);
+        }
+
+        writeBehind.shutdown();
+
+        assertEquals(RestStatus.SERVICE_UNAVAILABLE,
+                ((ElasticsearchStatusException) queued.get(5, TimeUnit.SECONDS)).status());
+    }
+
+    @Test
+    public void testWriteWithoutResultTimesOut() {
+        blocking = true;
+        start(10, 1, 0);
+        ReflectionTestUtils.setField(writeBehind, "writeTimeoutMs", 50L);
+
+        try {
+            writeBehind.write(new IndexRequest("snowboard", "_doc", "b1"));
+            fail("Write should time out");
+        } catch (ElasticsearchStatusException e) {
+            assertEquals(RestStatus.GATEWAY_TIMEOUT, e.status());
+            assertTrue(e.getMessage(), e.getMessage().endsWith("may still be applied"));
+        }
+    }
+
+    @Test
+    public void testQueuedWriteThatTimesOutIsNeverSent() throws Exception {
+        blocking = true;
+        start(10, 1, 0);
+        CompletableFuture<Void> inFlight = CompletableFuture.runAsync(() ->
+                writeBehind.write(new IndexRequest("snowboard", "_doc", "b1")));
+        while (bulkRequests.isEmpty()) {
+            Thread.sleep(10);
+        }
+        ReflectionTestUtils.setField(writeBehind, "writeTimeoutMs", 50L);
+
+        try {
+            writeBehind.write(new IndexRequest("snowboard", "_doc", "b2"));
+            fail("Write should time out");
+        } catch (ElasticsearchStatusException e) {
+            assertEquals(RestStatus.GATEWAY_TIMEOUT, e.status());
+            assertTrue(e.getMessage(), e.getMessage().endsWith("not applied"));
+        }
+        released.countDown();
+        inFlight.get(5, TimeUnit.SECONDS);
+        writeBehind.shutdown();
+
+        assertEquals(1, bulkRequests.size());
+    }
+
+    private void start(int queueCapacity, int batchSize, long windowMs) {
+        ReflectionTestUtils.setField(writeBehind, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(writeBehind, "batchSize", batchSize);
+        ReflectionTestUtils.setField(writeBehind, "windowMs", windowMs);
+        ReflectionTestUtils.setField(writeBehind, "offerTimeoutMs", 50L);
+        ReflectionTestUtils.setField(writeBehind, "writeTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(writeBehind, "shutdownTimeoutMs", 50L);
+        writeBehind.start();
+    }
+
+    private BulkItemResponse getItem(DocWriteRequest<?> request) {
+        if (request instanceof UpdateRequest) {
+            return new BulkItemResponse(0, DocWriteRequest.OpType.UPDATE, new BulkItemResponse.Failure(
+                    request.index(), request.type(), request.id(),
+                    new DocumentMissingException(new ShardId(request.index(), "_na_", 0), request.type(), request.id())));
+        }
+        return new BulkItemResponse(0, DocWriteRequest.OpType.INDEX, new IndexResponse(
+                new ShardId(request.index(), "_na_", 0), request.type(), request.id(), 0, 1, 1, true));
+    }
+
+    private void awaitRelease() {
+        try {
+            released.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
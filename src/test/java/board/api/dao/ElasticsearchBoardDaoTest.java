@@ -0,0 +1,173 @@
+package board.api.dao;
+
+import board.api.elastic.BoardCursor;
+import board.api.elastic.BoardFilter;
+import board.api.elastic.BoardFit;
+import board.api.elastic.BoardPageParameters;
+import board.api.elastic.BoardResponse;
+import board.api.model.Board;
+import board.api.util.BoardUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import junit.framework.TestCase;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.sort.ScriptSortBuilder;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.ResultsExtractor;
+import org.springframework.data.elasticsearch.core.query.SearchQuery;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ElasticsearchBoardDaoTest extends TestCase {
+
+    private ElasticsearchOperations elasticsearchOperations;
+    private BoardQueries boardQueries;
+    private ElasticsearchBoardDao boardDao;
+
+    @Override
+    protected void setUp() {
+        elasticsearchOperations = mock(ElasticsearchOperations.class);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        boardQueries = new BoardQueries(elasticsearchOperations);
+        ReflectionTestUtils.setField(boardQueries, "filterNames", Arrays.asList("terrain", "size"));
+        ReflectionTestUtils.setField(boardQueries, "searchFields", Collections.singletonList("name"));
+        ReflectionTestUtils.setField(boardQueries, "tiebreakerField", "id");
+        ReflectionTestUtils.setField(boardQueries, "fitScales", new double[]{5, 1, 0.5, 0.5});
+        boardDao = new ElasticsearchBoardDao(
+                elasticsearchOperations,
+                mock(RestHighLevelClient.class),
+                boardQueries,
+                new BoardResponseMapper(new ObjectMapper()),
+                new BoardUtil(),
+                new ObjectMapper(),
+                mock(BoardBulkIngester.class),
+                beanFactory.getBeanProvider(BoardWriteListener.class),
+                beanFactory.getBeanProvider(FacetIndex.class),
+                beanFactory.getBeanProvider(BoardWriteBehind.class),
+                beanFactory.getBeanProvider(FitIndex.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFindBoardsUsesSingleRoundTrip() {
+        SearchResponse searchResponse = getSearchResponse();
+        when(elasticsearchOperations.query(any(SearchQuery.class), any(ResultsExtractor.class)))
+                .thenAnswer(invocation -> invocation.<ResultsExtractor<?>>getArgument(1).extract(searchResponse));
+
+        BoardResponse response = boardDao.findBoards(getPageParameters(), Collections.singletonMap("terrain", "Powder"));
+
+        verify(elasticsearchOperations, times(1)).query(any(SearchQuery.class), any(ResultsExtractor.class));
+        verifyNoMoreInteractions(elasticsearchOperations);
+        assertEquals(1, response.getValues().size());
+        Board board = (Board) response.getValues().get(0);
+        assertEquals("b1", board.getId());
+        assertEquals("Powder", board.getTerrain());
+        assertEquals(11, response.getTotal());
+        assertEquals(2, response.getTotalPages());
+        BoardFilter terrain = response.getFilters().get(0);
+        assertEquals("terrain", terrain.getName());
+        assertEquals(Long.valueOf(11), terrain.getValues().get("Powder"));
+        assertEquals("Powder", terrain.getSelectedValue());
+    }
+
+    @Test
+    public void testIssuedCursorDecodesToTheNextPage() {
+        SearchResponse searchResponse = getSearchResponse();
+        searchResponse.getHits().getHits()[0].sortValues(new Object[]{2019, "b1"},
+                new DocValueFormat[]{DocValueFormat.RAW, DocValueFormat.RAW});
+        BoardPageParameters pageParameters = getPageParameters();
+        pageParameters.setPageSize(1);
+        pageParameters.setCursor(BoardCursor.decode(new BoardCursor("year", "desc", null).encode()));
+
+        BoardResponse response = new BoardResponseMapper(new ObjectMapper())
+                .creatBoardResponse(searchResponse, pageParameters, null);
+        pageParameters.setCursor(BoardCursor.decode(response.getNextCursor()));
+
+        assertFalse(pageParameters.getCursor().isFirstPage());
+        assertEquals("year", pageParameters.getCursor().getSortBy());
+        assertEquals(Arrays.asList(2019, "b1"),
+                Arrays.asList(boardQueries.getSearchSource(pageParameters, Collections.emptyMap(), true).searchAfter()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFitSortsByDistanceScriptWithoutTheFitIndex() {
+        SearchHit near = new SearchHit(1, "b1", new Text("_doc"), Collections.emptyMap());
+        near.sourceRef(new BytesArray("{\"id\":\"b1\",\"name\":\"Owl\"}"));
+        near.sortValues(new Object[]{4.0}, new DocValueFormat[]{DocValueFormat.RAW});
+        SearchHit unknown = new SearchHit(2, "b2", new Text("_doc"), Collections.emptyMap());
+        unknown.sourceRef(new BytesArray("{\"id\":\"b2\",\"name\":\"Hare\"}"));
+        unknown.sortValues(new Object[]{Double.MAX_VALUE}, new DocValueFormat[]{DocValueFormat.RAW});
+        SearchResponse searchResponse = mock(SearchResponse.class);
+        when(searchResponse.getHits()).thenReturn(new SearchHits(new SearchHit[]{near, unknown}, 2, 1.0f));
+        ArgumentCaptor<SearchQuery> searchQuery = ArgumentCaptor.forClass(SearchQuery.class);
+        when(elasticsearchOperations.query(searchQuery.capture(), any(ResultsExtractor.class)))
+                .thenAnswer(invocation -> invocation.<ResultsExtractor<?>>getArgument(1).extract(searchResponse));
+
+        List<BoardFit> fits = boardDao.findFittingBoards(new double[]{75, Double.NaN, Double.NaN, Double.NaN}, 2);
+
+        assertEquals(1, fits.size());
+        assertEquals("b1", fits.get(0).getId());
+        assertEquals(2.0, fits.get(0).getDistance());
+        assertEquals("Owl", fits.get(0).getValue().getName());
+        ScriptSortBuilder sort = (ScriptSortBuilder) searchQuery.getValue().getElasticsearchSorts().get(0);
+        assertEquals(Arrays.asList(15.0, null, null, null), sort.script().getParams().get("query"));
+        assertEquals(2, searchQuery.getValue().getPageable().getPageSize());
+    }
+
+    private SearchResponse getSearchResponse() {
+        SearchHit hit = new SearchHit(1, "b1", new Text("_doc"), Collections.emptyMap());
+        hit.sourceRef(new BytesArray("{\"id\":\"b1\",\"year\":2019,\"name\":\"Owl\",\"terrain\":\"Powder\"}"));
+        Aggregations aggregations = new Aggregations(Collections.singletonList(
+                getTerms("terrain", Collections.singletonMap("Powder", 11L))));
+        SearchResponse searchResponse = mock(SearchResponse.class);
+        when(searchResponse.getHits()).thenReturn(new SearchHits(new SearchHit[]{hit}, 11, 1.0f));
+        when(searchResponse.getAggregations()).thenReturn(aggregations);
+        return searchResponse;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Terms getTerms(String name, Map<String, Long> counts) {
+        Terms terms = mock(Terms.class);
+        when(terms.getName()).thenReturn(name);
+        List<Terms.Bucket> buckets = counts.entrySet().stream()
+                .map(entry -> getBucket(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+        when((List<Terms.Bucket>) terms.getBuckets()).thenReturn(buckets);
+        return terms;
+    }
+
+    private Terms.Bucket getBucket(String key, long docCount) {
+        Terms.Bucket bucket = mock(Terms.Bucket.class);
+        when(bucket.getKeyAsString()).thenReturn(key);
+        when(bucket.getDocCount()).thenReturn(docCount);
+        return bucket;
+    }
+
+    private BoardPageParameters getPageParameters() {
+        BoardPageParameters pageParameters = new BoardPageParameters();
+        pageParameters.setPage(0);
+        pageParameters.setPageSize(9);
+        pageParameters.setSortBy("year");
+        pageParameters.setSortOrder("desc");
+        return pageParameters;
+    }
+}
@@ -0,0 +1,134 @@
+package board.api.dao;
+
+import board.api.elastic.BoardFilter;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FacetIndexTest extends TestCase {
+
+    private Map<String, String[]> scanned;
+    private Map<String, String[]> unrefreshed;
+    private Runnable duringScan;
+    private FacetIndex facetIndex;
+
+    @Override
+    protected void setUp() {
+        scanned = new HashMap<>();
+        scanned.put("b1", new String[]{"Powder", "2019"});
+        scanned.put("b2", new String[]{"Park", "2019"});
+        unrefreshed = new HashMap<>();
+        duringScan = () -> { };
+        facetIndex = new FacetIndex(null, null) {
+            @Override
+            void refresh() {
+                scanned.putAll(unrefreshed);
+                unrefreshed.clear();
+            }
+
+            @Override
+            Map<String, String[]> scan() {
+                duringScan.run();
+                return new HashMap<>(scanned);
+            }
+        };
+        ReflectionTestUtils.setField(facetIndex, "filterNames", Arrays.asList("terrain", "year"));
+        ReflectionTestUtils.setField(facetIndex, "maxCombinations", 2);
+        ReflectionTestUtils.setField(facetIndex, "compactThreshold", 1000);
+    }
+
+    @Test
+    public void testWritesAreAppliedAsDeltas() {
+        assertNull(facetIndex.getFilters(Collections.emptyMap()));
+        facetIndex.reconcile();
+        assertEquals(Long.valueOf(2), getCounts(Collections.singletonMap("year", "2019"), "terrain").values().stream()
+                .reduce(0L, Long::sum));
+
+        facetIndex.onIndexed("b3", getSource("Powder", 2020));
+        facetIndex.onUpdated("b2", Collections.singletonMap("terrain", "Powder"));
+        facetIndex.onDeleted("b1");
+
+        Map<String, Long> terrain = getCounts(Collections.emptyMap(), "terrain");
+        assertEquals(Collections.singletonMap("Powder", 2L), terrain);
+        Map<String, Long> terrainIn2019 = getCounts(Collections.singletonMap("year", "2019"), "terrain");
+        assertEquals(Collections.singletonMap("Powder", 1L), terrainIn2019);
+    }
+
+    @Test
+    public void testCombinationsCountEachFilterWithoutItsSelection() {
+        facetIndex.reconcile();
+        Map<String, String> searchFilters = new HashMap<>();
+        searchFilters.put("terrain", "Powder");
+        searchFilters.put("year", "2019,2020");
+
+        assertEquals(Long.valueOf(1), getCounts(searchFilters, "terrain").get("Park"));
+        facetIndex.onIndexed("b3", getSource("Park", 2020));
+        assertEquals(Long.valueOf(2), getCounts(searchFilters, "terrain").get("Park"));
+        assertEquals(Collections.singletonMap("2019", 1L), getCounts(searchFilters, "year"));
+        assertNull(facetIndex.getFilters(Collections.singletonMap("year.min", "2019")));
+    }
+
+    @Test
+    public void testReconcileCorrectsDriftAndKeepsWritesDuringScan() {
+        facetIndex.reconcile();
+        facetIndex.onDeleted("b1");
+        scanned.put("b4", new String[]{"Carving", "2018"});
+        duringScan = () -> facetIndex.onIndexed("b5", getSource("Park", 2018));
+
+        facetIndex.reconcile();
+
+        Map<String, Long> terrain = getCounts(Collections.emptyMap(), "terrain");
+        assertEquals(Long.valueOf(1), terrain.get("Powder"));
+        assertEquals(Long.valueOf(2), terrain.get("Park"));
+        assertEquals(Long.valueOf(1), terrain.get("Carving"));
+    }
+
+    @Test
+    public void testReconcileKeepsWritesNotYetRefreshedBeforeTheScan() {
+        facetIndex.reconcile();
+        facetIndex.onIndexed("b3", getSource("Carving", 2020));
+        unrefreshed.put("b3", new String[]{"Carving", "2020"});
+
+        facetIndex.reconcile();
+
+        assertEquals(Long.valueOf(1), getCounts(Collections.emptyMap(), "terrain").get("Carving"));
+    }
+
+    @Test
+    public void testCompactionKeepsTheValuesAndLaterChanges() {
+        facetIndex.reconcile();
+        facetIndex.onIndexed("b3", getSource("Carving", 2020));
+        facetIndex.onDeleted("b1");
+
+        facetIndex.compact();
+        facetIndex.onUpdated("b3", Collections.singletonMap("terrain", "Park"));
+
+        assertEquals(Collections.singletonMap("Park", 2L), getCounts(Collections.emptyMap(), "terrain"));
+        assertEquals(Collections.singletonMap("Park", 1L), getCounts(Collections.singletonMap("year", "2020"), "terrain"));
+        facetIndex.onDeletedAll();
+        facetIndex.compact();
+        assertEquals(Collections.emptyMap(), getCounts(Collections.emptyMap(), "terrain"));
+    }
+
+    private Map<String, Object> getSource(String terrain, int year) {
+        Map<String, Object> source = new HashMap<>();
+        source.put("terrain", terrain);
+        source.put("year", year);
+        return source;
+    }
+
+    private Map<String, Long> getCounts(Map<String, String> searchFilters, String name) {
+        List<BoardFilter> filters = facetIndex.getFilters(searchFilters);
+        return filters.stream()
+                .filter(filter -> filter.getName().equals(name))
+                .findFirst()
+                .map(BoardFilter::getValues)
+                .orElseThrow(IllegalStateException::new);
+    }
+}
@@ -0,0 +1,99 @@
+package board.api.dao;
+
+import board.api.elastic.BoardFit;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class FitIndexTest extends TestCase {
+
+    private static final double[] WEIGHT_ONLY = {75, Double.NaN, Double.NaN, Double.NaN};
+
+    private Map<String, double[]> scanned;
+    private Map<String, double[]> unrefreshed;
+    private FitIndex fitIndex;
+
+    @Override
+    protected void setUp() {
+        scanned = new HashMap<>();
+        scanned.put("b1", new double[]{75, 5, 25, 19, 25});
+        scanned.put("b2", new double[]{85, 5, 25, 19, 25});
+        unrefreshed = new HashMap<>();
+        fitIndex = new FitIndex(null, null) {
+            @Override
+            void refresh() {
+                scanned.putAll(unrefreshed);
+                unrefreshed.clear();
+            }
+
+            @Override
+            Map<String, double[]> scan() {
+                Map<String, double[]> copy = new HashMap<>();
+                scanned.forEach((id, fields) -> copy.put(id, fields.clone()));
+                return copy;
+            }
+        };
+        ReflectionTestUtils.setField(fitIndex, "scales", new double[]{5, 1, 0.5, 0.5});
+        ReflectionTestUtils.setField(fitIndex, "rebuildThreshold", 2);
+    }
+
+    @Test
+    public void testWritesAreSearchedBeforeTheTreeIsRebuilt() throws Exception {
+        assertNull(fitIndex.getNearest(WEIGHT_ONLY, 2));
+        fitIndex.reconcile();
+        assertEquals(Arrays.asList("b1", "b2"), getIds(fitIndex.getNearest(WEIGHT_ONLY, 2)));
+
+        fitIndex.onIndexed("b3", getSource(76));
+        fitIndex.onDeleted("b1");
+        assertEquals(Arrays.asList("b3", "b2"), getIds(fitIndex.getNearest(WEIGHT_ONLY, 2)));
+
+        fitIndex.onUpdated("b2", Collections.singletonMap("spec", Collections.singletonMap("weightRange", 75)));
+        assertEquals(Arrays.asList("b2", "b3"), getIds(fitIndex.getNearest(WEIGHT_ONLY, 2)));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (getChanges() >= 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("the tree is rebuilt in the background", getChanges() < 2);
+        assertEquals(Arrays.asList("b2", "b3"), getIds(fitIndex.getNearest(WEIGHT_ONLY, 2)));
+    }
+
+    @Test
+    public void testReconcileKeepsWritesNotYetRefreshedBeforeTheScan() {
+        fitIndex.reconcile();
+        fitIndex.onIndexed("b3", getSource(75));
+        unrefreshed.put("b3", new double[]{75, 5, 25, 19, 25});
+
+        fitIndex.reconcile();
+
+        assertEquals(Arrays.asList("b1", "b3"), getIds(fitIndex.getNearest(WEIGHT_ONLY, 2)).stream().sorted()
+                .collect(Collectors.toList()));
+    }
+
+    private Map<String, Object> getSource(int weightRange) {
+        Map<String, Object> stance = new HashMap<>();
+        stance.put("min", 19.0);
+        stance.put("max", 25.0);
+        Map<String, Object> spec = new HashMap<>();
+        spec.put("weightRange", weightRange);
+        spec.put("flex", 5);
+        spec.put("waistWidth", 25.0);
+        spec.put("stance", stance);
+        return Collections.singletonMap("spec", spec);
+    }
+
+    private int getChanges() {
+        return ((Map<?, ?>) ReflectionTestUtils.getField(
+                ReflectionTestUtils.getField(fitIndex, "snapshot"), "changes")).size();
+    }
+
+    private List<String> getIds(List<BoardFit> fits) {
+        return fits.stream().map(BoardFit::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,56 @@
+package board.api.dao;
+
+import board.api.elastic.BoardFit;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class FitTreeTest extends TestCase {
+
+    @Test
+    public void testNearestMatchesLinearScan() {
+        Random random = new Random(7);
+        Map<String, double[]> points = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            points.put("b" + i, new double[]{random.nextInt(20), random.nextInt(10), random.nextDouble() * 15,
+                    random.nextDouble() * 10});
+        }
+        FitTree tree = new FitTree(points);
+        for (int i = 0; i < 50; i++) {
+            double[] query = {random.nextInt(20), i % 2 == 0 ? Double.NaN : random.nextInt(10),
+                    random.nextDouble() * 15, random.nextDouble() * 10};
+            FitTree.Neighbours neighbours = new FitTree.Neighbours(5);
+            tree.nearest(query, Collections.emptySet(), neighbours);
+
+            List<Double> expected = points.values().stream()
+                    .map(point -> Math.sqrt(FitTree.distance(query, point, 0)))
+                    .sorted(Comparator.naturalOrder())
+                    .limit(5)
+                    .collect(Collectors.toList());
+            assertEquals(expected, neighbours.toFits().stream().map(BoardFit::getDistance).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testSkippedBoardsAreNotOffered() {
+        Map<String, double[]> points = new HashMap<>();
+        points.put("b1", new double[]{16, 5, 50, 44});
+        points.put("b2", new double[]{17, 5, 50, 44});
+        points.put("b3", new double[]{12, 2, 40, 40});
+        FitTree tree = new FitTree(points);
+        FitTree.Neighbours neighbours = new FitTree.Neighbours(2);
+
+        tree.nearest(new double[]{16, Double.NaN, Double.NaN, Double.NaN}, Collections.singleton("b1"), neighbours);
+
+        List<String> ids = neighbours.toFits().stream().map(BoardFit::getId).collect(Collectors.toList());
+        assertEquals(Arrays.asList("b2", "b3"), ids);
+    }
+}
@@ -0,0 +1,165 @@
+package board.api.dao;
+
+import board.api.elastic.BoardCursor;
+import board.api.elastic.BoardFilter;
+import board.api.elastic.BoardPageParameters;
+import board.api.elastic.BoardResponse;
+import board.api.model.Board;
+import board.api.util.BoardUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+public class InMemoryBoardDaoTest extends TestCase {
+
+    private InMemoryBoardDao boardDao;
+
+    @Override
+    protected void setUp() {
+        boardDao = new InMemoryBoardDao(new BoardUtil(), new ObjectMapper());
+        ReflectionTestUtils.setField(boardDao, "filterNames", Arrays.asList("terrain", "year"));
+        ReflectionTestUtils.setField(boardDao, "searchFields", Arrays.asList("name.text", "terrain"));
+        boardDao.importBoards(Arrays.asList(
+                getBoard("b1", 2018, "Owl", "Powder"),
+                getBoard("b2", 2019, "Fox", "Powder"),
+                getBoard("b3", 2020, "Bear", "Powder"),
+                getBoard("b4", 2019, "Lynx", "Park")).iterator());
+    }
+
+    @Test
+    public void testFindBoardsFiltersSortsAndCounts() {
+        BoardResponse response = boardDao.findBoards(getPageParameters(0, 2), Collections.singletonMap("terrain", "Powder"));
+
+        assertEquals(3, response.getTotal());
+        assertEquals(2, response.getTotalPages());
+        assertEquals(Arrays.asList("b3", "b2"), getIds(response));
+        BoardFilter year = getFilter(response, "year");
+        assertEquals(Long.valueOf(1), year.getValues().get("2019"));
+        assertEquals(3, year.getValues().size());
+        assertEquals("Powder", getFilter(response, "terrain").getSelectedValue());
+    }
+
+    @Test
+    public void testMultiValueAndRangeFiltersCountDisjunctively() {
+        Map<String, String> searchFilters = new HashMap<>();
+        searchFilters.put("terrain", "Powder,Park");
+        searchFilters.put("year.min", "2019");
+        BoardResponse response = boardDao.findBoards(getPageParameters(0, 9), searchFilters);
+
+        assertEquals(Arrays.asList("b3", "b2", "b4"), getIds(response));
+        Map<String, Long> terrain = getFilter(response, "terrain").getValues();
+        assertEquals(Long.valueOf(2), terrain.get("Powder"));
+        assertEquals(Long.valueOf(1), terrain.get("Park"));
+        searchFilters.put("terrain", "Park");
+        terrain = getFilter(boardDao.findBoards(getPageParameters(0, 9), searchFilters), "terrain").getValues();
+        assertEquals(Long.valueOf(2), terrain.get("Powder"));
+    }
+
+    @Test
+    public void testCursorPagesFollowSortAndTiebreaker() {
+        BoardPageParameters pageParameters = getPageParameters(0, 3);
+        pageParameters.setCursor(BoardCursor.decode(new BoardCursor("year", "desc", null).encode()));
+        BoardResponse first = boardDao.findBoards(pageParameters, Collections.emptyMap());
+        pageParameters.setCursor(BoardCursor.decode(first.getNextCursor()));
+        BoardResponse second = boardDao.findBoards(pageParameters, Collections.emptyMap());
+
+        assertEquals(Arrays.asList("b3", "b2", "b4"), getIds(first));
+        assertEquals(Collections.singletonList("b1"), getIds(second));
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    public void testUpdateMovesBoardBetweenFilterValues() {
+        String version = boardDao.findBoardById("b1").getVersion();
+        HashMap<String, Object> body = new HashMap<>();
+        body.put("terrain", "Park");
+        boardDao.updateBoard("b1", body);
+        boardDao.removeBoard("b2");
+
+        Map<String, Long> terrain = getFilter(boardDao.findFilters(), "terrain").getValues();
+        assertEquals(Long.valueOf(1), terrain.get("Powder"));
+        assertEquals(Long.valueOf(2), terrain.get("Park"));
+        assertEquals("Park", boardDao.findBoardById("b1").getTerrain());
+        assertFalse(version.equals(boardDao.findBoardById("b1").getVersion()));
+        assertNull(boardDao.findBoardById("b2"));
+    }
+
+    @Test
+    public void testSearchBoardsMatchesSearchFields() {
+        BoardResponse response = boardDao.searchBoards(getPageParameters(0, 9), "lynx");
+
+        assertEquals(Collections.singletonList("b4"), getIds(response));
+    }
+
+    @Test
+    public void testReadsAreNotBlockedWhileAnImportBodyArrives() throws Exception {
+        ReflectionTestUtils.setField(boardDao, "importChunkSize", 1);
+        List<Board> boards = Arrays.asList(getBoard("b5", 2021, "Wolf", "Park"), getBoard("b6", 2021, "Hare", "Park"));
+        Iterator<Board> body = boards.iterator();
+        List<Long> totalsWhileReading = new ArrayList<>();
+        Iterator<Board> slowBody = new Iterator<Board>() {
+            @Override
+            public boolean hasNext() {
+                return body.hasNext();
+            }
+
+            @Override
+            public Board next() {
+                totalsWhileReading.add(CompletableFuture.supplyAsync(() ->
+                        boardDao.findBoards(getPageParameters(0, 9), Collections.emptyMap()).getTotal())
+                        .join());
+                return body.next();
+            }
+        };
+
+        boardDao.importBoards(slowBody);
+
+        assertEquals(Arrays.asList(4L, 5L), totalsWhileReading);
+    }
+
+    private Board getBoard(String id, int year, String name, String terrain) {
+        Board board = new Board();
+        board.setId(id);
+        board.setYear(year);
+        board.setName(name);
+        board.setTerrain(terrain);
+        return board;
+    }
+
+    private BoardPageParameters getPageParameters(int page, int pageSize) {
+        BoardPageParameters pageParameters = new BoardPageParameters();
+        pageParameters.setPage(page);
+        pageParameters.setPageSize(pageSize);
+        pageParameters.setSortBy("year");
+        pageParameters.setSortOrder("desc");
+        return pageParameters;
+    }
+
+    private List<String> getIds(BoardResponse response) {
+        return response.getValues().stream()
+                .map(value -> ((Board) value).getId())
+                .collect(Collectors.toList());
+    }
+
+    private BoardFilter getFilter(BoardResponse response, String name) {
+        return getFilter(response.getFilters(), name);
+    }
+
+    private BoardFilter getFilter(List<BoardFilter> filters, String name) {
+        return filters.stream()
+                .filter(filter -> filter.getName().equals(name))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+    }
+}
@@ -0,0 +1,46 @@
+package board.api.keycloak;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.keycloak.representations.AccessToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class TokenVerificationCacheTest extends TestCase {
+
+    private TokenVerificationCache cache;
+
+    @Override
+    protected void setUp() {
+        cache = new TokenVerificationCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        ReflectionTestUtils.setField(cache, "ttlMs", 60000L);
+    }
+
+    @Test
+    public void testEntriesDoNotOutliveTheToken() {
+        AccessToken expired = new AccessToken();
+        expired.exp(System.currentTimeMillis() / 1000 - 1);
+        AccessToken active = new AccessToken();
+        active.exp(System.currentTimeMillis() / 1000 + 600);
+        cache.put("expired", expired);
+        cache.put("active", active);
+
+        assertNull(cache.get("expired"));
+        assertSame(active, cache.get("active"));
+        assertNull(cache.get("unknown"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedTokenIsEvicted() {
+        AccessToken token = new AccessToken();
+        token.exp(System.currentTimeMillis() / 1000 + 600);
+        cache.put("first", token);
+        cache.put("second", token);
+        cache.get("first");
+        cache.put("third", token);
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("first"));
+        assertNull(cache.get("second"));
+    }
+}
@@ -0,0 +1,73 @@
+package board.api.metrics;
+
+import board.api.dao.BoardDao;
+import board.api.dao.InMemoryBoardDao;
+import board.api.elastic.BoardPageParameters;
+import board.api.util.BoardUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import junit.framework.TestCase;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.junit.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+
+public class BoardDaoMetricsTest extends TestCase {
+
+    private SimpleMeterRegistry registry;
+    private BoardDao boardDao;
+
+    @Override
+    protected void setUp() {
+        registry = new SimpleMeterRegistry();
+        BoardMetricTags metricTags = new BoardMetricTags();
+        ReflectionTestUtils.setField(metricTags, "filterNames", Arrays.asList("terrain", "size"));
+        ReflectionTestUtils.setField(metricTags, "responseFieldNames", Arrays.asList("year", "name"));
+        InMemoryBoardDao target = new InMemoryBoardDao(new BoardUtil(), new ObjectMapper());
+        ReflectionTestUtils.setField(target, "filterNames", Arrays.asList("terrain", "size"));
+        ReflectionTestUtils.setField(target, "searchFields", Collections.singletonList("name"));
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.addAspect(new BoardDaoMetrics(registry, metricTags));
+        boardDao = proxyFactory.getProxy();
+    }
+
+    @Test
+    public void testTimesCallsWithFilterAndSortTags() {
+        boardDao.findBoards(getPageParameters("year"), Collections.singletonMap("terrain", "Powder"));
+        boardDao.findBoards(getPageParameters("code"), Collections.emptyMap());
+
+        assertEquals(1, registry.get("board.dao")
+                .tags("method", "findBoards", "filters", "terrain", "sort", "year_desc", "mode", "page")
+                .timer().count());
+        assertEquals(1, registry.get("board.dao")
+                .tags("method", "findBoards", "filters", "none", "sort", "other")
+                .timer().count());
+    }
+
+    @Test
+    public void testCountsErrors() {
+        try {
+            boardDao.updateBoard("missing", new HashMap<>());
+            fail();
+        } catch (ElasticsearchStatusException e) {
+            assertEquals(1.0, registry.get("board.elasticsearch.errors")
+                    .tags("method", "updateBoard", "status", "404")
+                    .counter().count());
+            assertEquals(1, registry.get("board.dao")
+                    .tags("method", "updateBoard", "exception", "ElasticsearchStatusException")
+                    .timer().count());
+        }
+    }
+
+    private BoardPageParameters getPageParameters(String sortBy) {
+        BoardPageParameters pageParameters = new BoardPageParameters();
+        pageParameters.setPageSize(9);
+        pageParameters.setSortBy(sortBy);
+        pageParameters.setSortOrder("desc");
+        return pageParameters;
+    }
+}
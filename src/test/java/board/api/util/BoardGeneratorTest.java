@@ -0,0 +1,55 @@
+package board.api.util;
+
+import board.api.model.Board;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+public class BoardGeneratorTest extends TestCase {
+
+    private Properties properties;
+
+    @Override
+    protected void setUp() throws IOException {
+        properties = PropertiesLoaderUtils.loadProperties(new ClassPathResource("board.properties"));
+    }
+
+    @Test
+    public void testSameSeedGivesSameBoardsOnAnyThread() {
+        List<Board> sequential = LongStream.range(0, 200)
+                .mapToObj(BoardGenerator.fromProperties(properties, 7L)::getBoard)
+                .collect(Collectors.toList());
+        List<Board> parallel = BoardGenerator.fromProperties(properties, 7L).getBoards(0, 200)
+                .collect(Collectors.toList());
+
+        assertEquals(sequential, parallel);
+        assertEquals(200, sequential.stream().map(Board::getId).distinct().count());
+        assertFalse(sequential.get(0).equals(BoardGenerator.fromProperties(properties, 8L).getBoard(0)));
+    }
+
+    @Test
+    public void testWritesBulkFileInBoardOrder() throws IOException {
+        BoardGenerator generator = BoardGenerator.fromProperties(properties, 7L);
+        Path file = Files.createTempFile("boards", ".ndjson");
+        try {
+            generator.write(file, 2500, "snowboard", new ObjectMapper());
+            List<String> lines = Files.readAllLines(file);
+
+            assertEquals(5000, lines.size());
+            assertTrue(lines.get(2000).contains(generator.getBoard(1000).getId()));
+            assertEquals(generator.getBoard(1000), new ObjectMapper().readValue(lines.get(2001), Board.class));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}